@@ -0,0 +1,73 @@
+package com.livecoding.benchmarks;
+
+import com.livecoding.billingservice.dto.Product;
+import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.entites.Bill;
+import com.livecoding.billingservice.service.BillTotals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boucle des totaux de BillingService.createBillForCustomer (BillTotals.compute),
+ * pour des factures de 1 à 1000 lignes dont 10% de produits inconnus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BillTotalsBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int lines;
+
+    private Bill bill;
+    private List<ProductSelection> selections;
+    private Map<Long, Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        bill = Bill.builder().customerId(1L).build();
+        selections = new ArrayList<>(lines);
+        products = new HashMap<>();
+
+        for (long id = 1; id <= lines; id++) {
+            ProductSelection selection = new ProductSelection();
+            selection.setProductId(id);
+            selection.setQuantity(1 + random.nextInt(10));
+            selections.add(selection);
+
+            if (random.nextInt(10) != 0) {
+                Product product = new Product();
+                product.setId(id);
+                product.setName("Product " + id);
+                product.setPrice(1 + random.nextInt(100_000) / 100.0);
+                products.put(id, product);
+            }
+        }
+    }
+
+    @Benchmark
+    public BillTotals computeTotals() {
+        return BillTotals.compute(bill, selections, products);
+    }
+}
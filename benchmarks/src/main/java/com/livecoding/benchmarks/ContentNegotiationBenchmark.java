@@ -0,0 +1,110 @@
+package com.livecoding.benchmarks;
+
+import com.livecoding.billingservice.dto.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ========================================
+ * BENCHMARK JSON vs CBOR - GET /api/products
+ * ========================================
+ *
+ * Coût d'encodage (inventory-service) et de décodage (client Feign de billing-service) de la
+ * réponse de getAllProducts, en JSON et en CBOR (Accept: application/cbor), Jackson 3 comme
+ * dans les services.
+ *
+ * La taille de la réponse est affichée au démarrage, brute et gzip (server.compression).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContentNegotiationBenchmark {
+
+    private static final TypeReference<List<Product>> PRODUCTS = new TypeReference<>() {
+    };
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private final ObjectMapper jsonMapper = JsonMapper.builder().build();
+    private final ObjectMapper cborMapper = CBORMapper.builder().build();
+
+    private List<Product> products;
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setName("Produit " + (i + 1) + " - ref " + Integer.toHexString(random.nextInt()));
+            product.setPrice(Math.round(random.nextDouble() * 100_000) / 100.0);
+            product.setQuantity(random.nextInt(500));
+            products.add(product);
+        }
+        json = jsonMapper.writeValueAsBytes(products);
+        cbor = cborMapper.writeValueAsBytes(products);
+
+        System.out.printf("%nBytes/response (%d products) -> JSON: %d (gzip %d), CBOR: %d (gzip %d)%n",
+                size, json.length, gzip(json).length, cbor.length, gzip(cbor).length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return jsonMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] cborEncode() {
+        return cborMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public List<Product> jsonDecode() {
+        return jsonMapper.readValue(json, PRODUCTS);
+    }
+
+    @Benchmark
+    public List<Product> cborDecode() {
+        return cborMapper.readValue(cbor, PRODUCTS);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
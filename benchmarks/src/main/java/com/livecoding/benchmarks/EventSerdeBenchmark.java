@@ -0,0 +1,92 @@
+package com.livecoding.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.livecoding.events.BillCreatedEvent;
+import com.livecoding.events.serde.BillCreatedEventDeserializer;
+import com.livecoding.events.serde.BillCreatedEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ========================================
+ * BENCHMARK JSON vs BINAIRE - BillCreatedEvent
+ * ========================================
+ *
+ * Compare le coût d'encodage / décodage (ns/op) du JSON (JsonSerializer spring-kafka)
+ * et du format binaire versionné de common-events.
+ *
+ * La taille par événement est affichée au démarrage du benchmark. Pour le JSON on compte
+ * aussi le header __TypeId__ (nom complet de la classe) ajouté par JsonSerializer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventSerdeBenchmark {
+
+    private static final String TOPIC = "bill-created-topic";
+    private static final String TYPE_HEADER = "__TypeId__";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BillCreatedEventSerializer binarySerializer = new BillCreatedEventSerializer();
+    private final BillCreatedEventDeserializer binaryDeserializer = new BillCreatedEventDeserializer();
+
+    private BillCreatedEvent event;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        event = BillCreatedEvent.builder()
+                .billId(123_456L)
+                .customerId(4_321L)
+                .customerName("Mohamed Amine")
+                .customerEmail("mohamed.amine@example.com")
+                .billingDate(new Date())
+                .totalItems(12)
+                .totalAmount(1_549.90)
+                .build();
+        json = objectMapper.writeValueAsBytes(event);
+        binary = binarySerializer.serialize(TOPIC, event);
+
+        int typeHeader = TYPE_HEADER.length() + BillCreatedEvent.class.getName().getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%nBytes/event -> JSON: %d (+%d header __TypeId__), binary: %d%n",
+                json.length, typeHeader, binary.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public BillCreatedEvent jsonDecode() throws IOException {
+        return objectMapper.readValue(json, BillCreatedEvent.class);
+    }
+
+    @Benchmark
+    public BillCreatedEvent binaryDecode() {
+        return binaryDeserializer.deserialize(TOPIC, binary);
+    }
+}
@@ -0,0 +1,180 @@
+package com.livecoding.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ========================================
+ * CHARGE HTTP EN BOUCLE FERMEE
+ * ========================================
+ *
+ * N clients simultanés enchaînent les requêtes sans pause (une requête ne part qu'après la
+ * réponse précédente) : débit et latences (p50, p99, max) par niveau de concurrence.
+ * Sans dépendance, lancé directement depuis les sources par load-benchmark.sh :
+ *
+ *   java LoadBenchmark.java libellé url 16,64,256 secondes [corps JSON = POST]
+ *
+ * - Chaque niveau est précédé d'un échauffement (1/3 de la durée, non mesuré)
+ * - Seules les réponses 2xx entrent dans les latences, le reste est compté en erreur
+ */
+public final class LoadBenchmark {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private LoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 4) {
+            System.err.println("Usage: LoadBenchmark <label> <url> <concurrency,...> <seconds> [json body]");
+            System.exit(2);
+        }
+        String label = args[0];
+        URI uri = URI.create(args[1]);
+        int[] levels = Arrays.stream(args[2].split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[3]));
+        HttpRequest request = request(uri, args.length > 4 ? args[4] : null);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        for (int concurrency : levels) {
+            run(client, request, concurrency, duration.dividedBy(3));
+            Result result = run(client, request, concurrency, duration);
+            System.out.printf("%-28s %11d %10.0f %9.1f %9.1f %9.1f %8d%n",
+                    label, concurrency, result.throughput(), result.percentileMs(0.50),
+                    result.percentileMs(0.99), result.percentileMs(1.0), result.errors);
+        }
+    }
+
+    private static HttpRequest request(URI uri, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json");
+        if (body == null) {
+            return builder.GET().build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration)
+            throws InterruptedException {
+        List<Worker> workers = new ArrayList<>(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long deadline = System.nanoTime() + duration.toNanos();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(client, request, deadline, done);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (!done.await(duration.plus(REQUEST_TIMEOUT).plusSeconds(5).toMillis(), TimeUnit.MILLISECONDS)) {
+            System.err.println("Workers still running after the deadline, results are partial");
+        }
+        return Result.merge(workers, duration);
+    }
+
+    /**
+     * Un client : enchaîne les requêtes jusqu'à l'échéance, latences dans un tableau propre au thread.
+     */
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final long deadline;
+        private final CountDownLatch done;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private Worker(HttpClient client, HttpRequest request, long deadline, CountDownLatch done) {
+            this.client = client;
+            this.request = request;
+            this.deadline = deadline;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status >= 200 && status < 300) {
+                            record(System.nanoTime() - start);
+                        } else {
+                            errors++;
+                        }
+                    } catch (IOException e) {
+                        errors++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private static final class Result {
+
+        private final long[] latencies;
+        private final long errors;
+        private final Duration duration;
+
+        private Result(long[] latencies, long errors, Duration duration) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.duration = duration;
+        }
+
+        static Result merge(List<Worker> workers, Duration duration) {
+            int total = workers.stream().mapToInt(worker -> worker.count).sum();
+            long[] all = new long[total];
+            int offset = 0;
+            long errors = 0;
+            for (Worker worker : workers) {
+                System.arraycopy(worker.latencies, 0, all, offset, worker.count);
+                offset += worker.count;
+                errors += worker.errors;
+            }
+            Arrays.sort(all);
+            return new Result(all, errors, duration);
+        }
+
+        double throughput() {
+            return latencies.length / (duration.toNanos() / 1e9);
+        }
+
+        double percentileMs(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
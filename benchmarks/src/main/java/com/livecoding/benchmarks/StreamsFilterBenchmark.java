@@ -0,0 +1,104 @@
+package com.livecoding.benchmarks;
+
+import com.livecoding.billingservice.kafkaprocessing.KafkaStreamsConfig;
+import com.livecoding.events.BillCreatedEvent;
+import com.livecoding.events.serde.BillCreatedEventSerde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Produced;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtre "facture > 500€" de KafkaStreamsConfig (HIGH_VALUE_BILL) :
+ * - predicateOnly : le prédicat seul
+ * - topology      : un record à travers source → filtre → sink avec TopologyTestDriver
+ *                   (désérialisation/sérialisation binaires comprises), une facture sur deux passe
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamsFilterBenchmark {
+
+    private static final String INPUT = "bill-created-topic";
+    private static final String OUTPUT = "high-value-bills";
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, BillCreatedEvent> input;
+    private TestOutputTopic<String, BillCreatedEvent> output;
+    private final BillCreatedEvent[] events = new BillCreatedEvent[2];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BillCreatedEventSerde serde = new BillCreatedEventSerde();
+        StreamsBuilder builder = new StreamsBuilder();
+        builder.stream(INPUT, Consumed.with(Serdes.String(), serde))
+                .filter(KafkaStreamsConfig.HIGH_VALUE_BILL)
+                .to(OUTPUT, Produced.with(Serdes.String(), serde));
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "streams-filter-benchmark");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        driver = new TopologyTestDriver(builder.build(), props);
+        input = driver.createInputTopic(INPUT, new StringSerializer(), serde.serializer());
+        output = driver.createOutputTopic(OUTPUT, new StringDeserializer(), serde.deserializer());
+
+        events[0] = event(1L, 120.0);
+        events[1] = event(2L, 1_250.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.close();
+    }
+
+    @Benchmark
+    public boolean predicateOnly() {
+        BillCreatedEvent event = events[next++ & 1];
+        return KafkaStreamsConfig.HIGH_VALUE_BILL.test("key", event);
+    }
+
+    @Benchmark
+    public BillCreatedEvent topology() {
+        BillCreatedEvent event = events[next++ & 1];
+        input.pipeInput(String.valueOf(event.getBillId()), event);
+        return output.isEmpty() ? null : output.readValue();
+    }
+
+    private static BillCreatedEvent event(Long billId, double totalAmount) {
+        return BillCreatedEvent.builder()
+                .billId(billId)
+                .customerId(7L)
+                .customerName("Imen")
+                .customerEmail("m1@gm.com")
+                .billingDate(new Date())
+                .totalItems(3)
+                .totalAmount(totalAmount)
+                .build();
+    }
+}
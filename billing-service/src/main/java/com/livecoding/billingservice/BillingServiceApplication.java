@@ -1,13 +1,18 @@
 package com.livecoding.billingservice;
 
+import com.livecoding.monitoring.VirtualThreadPinningMonitor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
 @EnableKafkaStreams
+@EnableScheduling
+@Import(VirtualThreadPinningMonitor.class)   // common-monitoring : détection du pinning des virtual threads
 public class BillingServiceApplication {
 	// circuit breaker with resilience4j : il permet de gerer les pannes de services en evitant les appels a des services en panne
 	// il permet egalement de definir des strategies de retry, de timeout, de fallback
@@ -0,0 +1,171 @@
+package com.livecoding.billingservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.livecoding.billingservice.dto.Customer;
+import com.livecoding.billingservice.dto.Product;
+import com.livecoding.billingservice.feing.CustomerRestClient;
+import com.livecoding.billingservice.feing.HedgedRequests;
+import com.livecoding.billingservice.feing.ProductRestClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ========================================
+ * NEAR-CACHE DU CATALOGUE (produits + clients)
+ * ========================================
+ *
+ * Cache local borné (taille max + TTL) devant ProductRestClient et CustomerRestClient.
+ * - Les miss sont chargés en un seul appel groupé (/bulk), doublé si trop lent (HedgedRequests)
+ * - Maintenu à jour par les ProductChangedEvent / CustomerChangedEvent (CatalogEventConsumer)
+ * - Préchargé avec getAllProducts au démarrage
+ * - Statistiques hit/miss/eviction exposées sur /actuator/prometheus (cache.gets, cache.evictions...)
+ *
+ * Le TTL ne sert que de filet de sécurité si un événement est perdu.
+ *
+ * Un chargement groupé de produits n'est pas atomique avec les événements : une réponse partie
+ * avant un ProductChangedEvent peut arriver après lui. Chaque produit a donc un numéro de version
+ * (par tranche d'ids, nombre fixe de compteurs), incrémenté à chaque événement et vérifié avant et
+ * après la mise en cache du résultat chargé : une ancienne version n'est jamais gardée jusqu'au TTL.
+ */
+@Component
+@Slf4j
+public class CatalogCache {
+
+    private final ProductRestClient productRestClient;
+    private final CustomerRestClient customerRestClient;
+    private final HedgedRequests hedgedRequests;
+    private final Cache<Long, Product> products;
+    private final Cache<Long, Customer> customers;
+    // Versions des produits par tranche d'ids : une collision ne coûte qu'un rechargement
+    private final AtomicLongArray productVersions = new AtomicLongArray(VERSION_STRIPES);
+
+    private static final int VERSION_STRIPES = 1024;
+
+    public CatalogCache(
+            ProductRestClient productRestClient,
+            CustomerRestClient customerRestClient,
+            HedgedRequests hedgedRequests,
+            MeterRegistry meterRegistry,
+            @Value("${catalog.cache.max-size:10000}") long maxSize,
+            @Value("${catalog.cache.ttl:10m}") Duration ttl
+    ) {
+        this.productRestClient = productRestClient;
+        this.customerRestClient = customerRestClient;
+        this.hedgedRequests = hedgedRequests;
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.customers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog-products");
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "catalog-customers");
+    }
+
+    public Customer getCustomer(Long id) {
+        // null (client inconnu) n'est pas mis en cache
+        return customers.get(id, key -> hedgedRequests.get("customer-service", () -> customerRestClient.findCustomerById(key)));
+    }
+
+    public Map<Long, Product> getProducts(Collection<Long> ids) {
+        Map<Long, Product> result = new HashMap<>(products.getAllPresent(ids));
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(result.keySet());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // Versions lues avant l'appel : un événement reçu pendant l'appel rend sa réponse non cacheable
+        Map<Long, Long> versions = new HashMap<>();
+        missing.forEach(id -> versions.put(id, productVersion(id)));
+        Map<Long, Product> loaded = loadProducts(missing);
+        loaded.forEach((id, product) -> {
+            Long expected = versions.get(id);
+            if (expected != null) {
+                putIfCurrent(id, product, expected);
+            }
+        });
+        result.putAll(loaded);
+        return result;
+    }
+
+    public void putProduct(Product product) {
+        productVersions.incrementAndGet(stripe(product.getId()));
+        products.put(product.getId(), product);
+    }
+
+    public void evictProduct(Long id) {
+        productVersions.incrementAndGet(stripe(id));
+        products.invalidate(id);
+    }
+
+    public void putCustomer(Customer customer) {
+        customers.put(customer.getId(), customer);
+    }
+
+    public void evictCustomer(Long id) {
+        customers.invalidate(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<Product> all = productRestClient.getAllProducts();
+            all.forEach(this::putProduct);
+            log.info("🔥 Cache catalogue préchargé avec {} produits", all.size());
+        } catch (RuntimeException e) {
+            // inventory-service pas encore disponible : le cache se remplira à la demande
+            log.warn("Préchargement du cache catalogue impossible: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Relecture après le put : un événement concurrent a soit vu l'entrée (et l'a remplacée ou retirée),
+     * soit changé la version (l'entrée chargée est alors retirée).
+     */
+    private void putIfCurrent(Long id, Product product, long expectedVersion) {
+        if (productVersion(id) != expectedVersion) {
+            return;
+        }
+        products.put(id, product);
+        if (productVersion(id) != expectedVersion) {
+            products.asMap().remove(id, product);
+        }
+    }
+
+    private long productVersion(Long id) {
+        return productVersions.get(stripe(id));
+    }
+
+    private static int stripe(Long id) {
+        return Math.floorMod(id.hashCode(), VERSION_STRIPES);
+    }
+
+    private Map<Long, Product> loadProducts(Set<? extends Long> ids) {
+        List<Long> missing = new ArrayList<>(ids);
+        return hedgedRequests.get("inventory-service", () -> productRestClient.findProductsByIds(missing)).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity(), (a, b) -> a));
+    }
+}
@@ -1,7 +1,12 @@
 package com.livecoding.billingservice.controller;
 
+import com.livecoding.billingservice.dto.BillPage;
+import com.livecoding.billingservice.dto.BillView;
+import com.livecoding.billingservice.dto.GenerationReport;
 import com.livecoding.billingservice.dto.ProductSelection;
 import com.livecoding.billingservice.service.BillingService;
+import com.livecoding.billingservice.service.OutOfStockException;
+import com.livecoding.billingservice.service.RemoteLookupFanOut;
 import com.livecoding.events.BillCreatedEvent;
 import com.livecoding.billingservice.dto.Customer;
 import com.livecoding.billingservice.dto.Product;
@@ -13,9 +18,16 @@ import com.livecoding.billingservice.kafka.BillEventProducer;
 import com.livecoding.billingservice.repository.BillRepository;
 import com.livecoding.billingservice.repository.ProductItemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.List;
 
@@ -24,16 +36,61 @@ import java.util.List;
 @RequestMapping("/bills")
 public class BillingRestController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int FLUSH_EVERY = 500;
+
     private final BillingService billingService;
+    private final JsonMapper jsonMapper;
 
     @Autowired
-    public BillingRestController(BillingService billingService) {
+    public BillingRestController(BillingService billingService, JsonMapper jsonMapper) {
         this.billingService = billingService;
+        this.jsonMapper = jsonMapper;
     }
 
+    /**
+     * Pagination par curseur : GET /bills?customerId=1&from=...&to=...&after=42&limit=100
+     * (from inclus, to exclus, dates ISO-8601).
+     */
     @GetMapping
-    public ResponseEntity<List<Bill>> getAllBills() {
-        return ResponseEntity.ok(billingService.getAllBills());
+    public ResponseEntity<BillPage> getBills(
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(billingService.getBillPage(after, customerId, from, to, pageSize));
+    }
+
+    /**
+     * Export complet en NDJSON (une facture JSON par ligne), écrit au fil de la lecture :
+     * la mémoire utilisée ne dépend pas du nombre de factures.
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBills(
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to
+    ) {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            billingService.streamBills(customerId, from, to, bill -> {
+                try {
+                    out.write(jsonMapper.writeValueAsBytes(bill));
+                    out.write('\n');
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     @GetMapping("/{id}")
@@ -51,10 +108,31 @@ public class BillingRestController {
         return ResponseEntity.ok(items);
     }
 
+    /**
+     * Facture + client + lignes enrichies en une seule réponse (remplace /{id} puis /{id}/items).
+     */
+    @GetMapping("/{id}/full")
+    public ResponseEntity<BillView> getFullBill(@PathVariable Long id) {
+        BillView bill = billingService.getFullBill(id);
+        if (bill == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(bill);
+    }
+
     @PostMapping("/generate-all")
-    public ResponseEntity<String> generateAllBills() {
-        String result = billingService.generateAllBills();
-        return ResponseEntity.ok(result);
+    public ResponseEntity<GenerationReport> generateAllBills() {
+        try {
+            // 202: la generation continue en arriere-plan, suivre /bills/generate-all/status
+            return ResponseEntity.accepted().body(billingService.generateAllBills());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(billingService.getGenerationStatus());
+        }
+    }
+
+    @GetMapping("/generate-all/status")
+    public ResponseEntity<GenerationReport> getGenerationStatus() {
+        return ResponseEntity.ok(billingService.getGenerationStatus());
     }
 
     @PostMapping("/customer/{customerId}")
@@ -65,6 +143,11 @@ public class BillingRestController {
         try {
             Bill bill = billingService.createBillForCustomer(customerId, selections);
             return ResponseEntity.ok(bill);
+        } catch (OutOfStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (RemoteLookupFanOut.RemoteLookupException e) {
+            // customer-service / inventory-service en échec ou trop lent
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(null);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(null);
         }
@@ -0,0 +1,88 @@
+package com.livecoding.billingservice.controller;
+
+import com.livecoding.billingservice.dto.RevenueWindow;
+import com.livecoding.billingservice.kafkaprocessing.CustomerRevenue;
+import com.livecoding.billingservice.service.RevenueQueryService;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Chiffre d'affaires par client, lu dans les state stores Kafka Streams.
+ *
+ * - 307 vers l'instance propriétaire si le client est servi par une autre instance
+ * - 503 pendant un rebalance / la restauration des stores (réessayer)
+ */
+@RestController
+@RequestMapping("/bills/revenue")
+public class RevenueRestController {
+
+    private static final long DEFAULT_RANGE_MS = 24 * 60 * 60 * 1000L;
+
+    private final RevenueQueryService revenueQueryService;
+
+    public RevenueRestController(RevenueQueryService revenueQueryService) {
+        this.revenueQueryService = revenueQueryService;
+    }
+
+    @GetMapping("/{customerId}")
+    public ResponseEntity<CustomerRevenue> getTotal(@PathVariable Long customerId) {
+        try {
+            HostInfo owner = revenueQueryService.remoteOwner(customerId);
+            if (owner != null) {
+                return redirectTo(owner);
+            }
+            CustomerRevenue revenue = revenueQueryService.getTotal(customerId);
+            return revenue == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(revenue);
+        } catch (InvalidStateStoreException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * GET /bills/revenue/{customerId}/windows?granularity=tumbling|hopping&from=...&to=...
+     * (dernières 24h par défaut, dates ISO-8601).
+     */
+    @GetMapping("/{customerId}/windows")
+    public ResponseEntity<List<RevenueWindow>> getWindows(
+            @PathVariable Long customerId,
+            @RequestParam(defaultValue = "tumbling") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to
+    ) {
+        Date end = to != null ? to : new Date();
+        Date start = from != null ? from : new Date(end.getTime() - DEFAULT_RANGE_MS);
+        try {
+            HostInfo owner = revenueQueryService.remoteOwner(customerId);
+            if (owner != null) {
+                return redirectTo(owner);
+            }
+            return ResponseEntity.ok(revenueQueryService.getWindows(customerId, granularity, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (InvalidStateStoreException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private <T> ResponseEntity<T> redirectTo(HostInfo owner) {
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .host(owner.host())
+                        .port(owner.port())
+                        .build()
+                        .toUri())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.livecoding.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Une ligne du résultat de BillRepository.findFullBill : la facture répétée sur chacune de ses lignes
+ * (left join : une facture sans ligne donne une seule ligne avec itemId = null).
+ */
+@Getter
+@AllArgsConstructor
+public class BillLine {
+    private Long billId;
+    private Date billingDate;
+    private Long customerId;
+    private Long itemId;
+    private Long productId;
+    private Integer quantity;
+    private Double unitPrice;
+}
@@ -0,0 +1,18 @@
+package com.livecoding.billingservice.dto;
+
+import com.livecoding.billingservice.entites.Bill;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Page de factures pour GET /bills.
+ * nextCursor est à repasser dans "after" pour la page suivante (null = dernière page).
+ */
+@Getter
+@AllArgsConstructor
+public class BillPage {
+    private List<Bill> items;
+    private Long nextCursor;
+}
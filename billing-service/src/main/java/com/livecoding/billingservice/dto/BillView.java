@@ -0,0 +1,31 @@
+package com.livecoding.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Vue complète d'une facture pour GET /bills/{id}/full : facture, client et lignes enrichies.
+ */
+@Getter
+@AllArgsConstructor
+public class BillView {
+    private Long id;
+    private Date billingDate;
+    private Long customerId;
+    private Customer customer;
+    private List<Item> items;
+    private double totalAmount;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Item {
+        private Long id;
+        private Long productId;
+        private int quantity;
+        private double unitPrice;
+        private Product product;
+    }
+}
@@ -0,0 +1,16 @@
+package com.livecoding.billingservice.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Page de clients de customer-service (GET /api/customers/page), nextCursor = null sur la dernière page.
+ */
+@Getter
+@Setter
+public class CustomerPage {
+    private List<Customer> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,24 @@
+package com.livecoding.billingservice.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Etat / bilan d'une generation massive de factures (POST /bills/generate-all).
+ */
+@Getter
+@Builder
+public class GenerationReport {
+    private String status;          // IDLE, RUNNING, COMPLETED, FAILED
+    private int customers;
+    private int products;
+    private long billsWritten;
+    private long itemsWritten;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private String error;
+
+    public static GenerationReport idle() {
+        return GenerationReport.builder().status("IDLE").build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.livecoding.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Chiffre d'affaires d'un client sur une fenêtre [windowStart, windowEnd[ (GET /bills/revenue/{customerId}/windows).
+ */
+@Getter
+@AllArgsConstructor
+public class RevenueWindow {
+    private Long customerId;
+    private Date windowStart;
+    private Date windowEnd;
+    private long billCount;
+    private double revenue;
+}
@@ -0,0 +1,22 @@
+package com.livecoding.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Confirmation d'une réservation de stock, écrite dans l'outbox avec la facture puis livrée
+ * (et rejouée jusqu'au succès) par OutboxRelay. Les lignes permettent à inventory-service
+ * d'appliquer la vente même si la réservation a expiré entre-temps.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommit {
+    private String reservationId;
+    private List<ProductSelection> lines;
+}
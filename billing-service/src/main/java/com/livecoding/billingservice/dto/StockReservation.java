@@ -0,0 +1,18 @@
+package com.livecoding.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Réservation de stock d'inventory-service, à confirmer (commit) une fois la facture enregistrée.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    private String reservationId;
+    private long expiresAt;
+}
@@ -8,6 +8,10 @@ import lombok.*;
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_bill_customer", columnList = "customerId, id"),
+        @Index(name = "idx_bill_date", columnList = "billingDate")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -15,7 +19,9 @@ import java.util.Date;
 @Builder
 public class Bill {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE (et non IDENTITY) pour que Hibernate puisse regrouper les INSERT en batch JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_seq")
+    @SequenceGenerator(name = "bill_seq", sequenceName = "bill_seq", allocationSize = 50)
     @JsonProperty("id")
     private Long id;
     private Date billingDate;
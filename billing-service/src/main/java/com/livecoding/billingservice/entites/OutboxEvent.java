@@ -0,0 +1,44 @@
+package com.livecoding.billingservice.entites;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Ligne de la table outbox, écrite dans la même transaction que la facture puis livrée par
+ * OutboxRelay et supprimée :
+ * - BILL_CREATED : BillCreatedEvent (JSON) publié sur Kafka
+ * - STOCK_COMMIT : confirmation de la réservation de stock (StockCommit) envoyée à inventory-service
+ *
+ * claimedUntil : ligne prise par un relay jusqu'à cette date (envoi en cours hors transaction).
+ * parked : payload illisible, mis de côté au lieu de bloquer l'outbox (voir lastError).
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    private Type type;
+    private Long billId;
+    @Lob
+    private String payload;
+    private Date createdAt;
+    private Date claimedUntil;
+    private int attempts;
+    private boolean parked;
+    @Column(length = 500)
+    private String lastError;
+
+    public enum Type {
+        BILL_CREATED,
+        STOCK_COMMIT
+    }
+}
@@ -14,12 +14,15 @@ import lombok.*;
 @Builder
 public class ProductItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE (et non IDENTITY) pour que Hibernate puisse regrouper les INSERT en batch JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_item_seq")
+    @SequenceGenerator(name = "product_item_seq", sequenceName = "product_item_seq", allocationSize = 50)
     @JsonProperty("id")
     private Long id;
     @JsonProperty("productId")
     private Long productId;
-    @ManyToOne
+    // LAZY : la facture n'est jamais relue pour chaque ligne chargée
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnore
     private Bill bill;
     private int quantity;
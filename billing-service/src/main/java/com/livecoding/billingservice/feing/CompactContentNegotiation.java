@@ -0,0 +1,35 @@
+package com.livecoding.billingservice.feing;
+
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * ========================================
+ * NEGOCIATION CBOR DES APPELS FEIGN
+ * ========================================
+ *
+ * inventory-service et customer-service répondent en application/cbor (JSON binaire, mêmes DTO,
+ * mêmes annotations Jackson) quand l'appelant le demande. Les clients Feign le demandent en
+ * premier, le JSON reste accepté : un service pas encore redéployé répond en JSON sans erreur.
+ *
+ * - Décodage : convertisseur CBOR de Spring (jackson-dataformat-cbor sur le classpath)
+ * - Corps des requêtes (POST) : toujours en JSON, le convertisseur JSON passe avant le CBOR
+ * - Un Accept explicite sur une méthode Feign (produces) n'est pas modifié
+ */
+@Configuration
+public class CompactContentNegotiation {
+
+    private static final String ACCEPT_CBOR_THEN_JSON = "application/cbor, application/json;q=0.9";
+
+    @Bean
+    public RequestInterceptor cborAcceptInterceptor(@Value("${billing.feign.cbor.enabled:true}") boolean enabled) {
+        return template -> {
+            if (enabled && !template.headers().containsKey(HttpHeaders.ACCEPT)) {
+                template.header(HttpHeaders.ACCEPT, ACCEPT_CBOR_THEN_JSON);
+            }
+        };
+    }
+}
@@ -1,10 +1,13 @@
 package com.livecoding.billingservice.feing;
 
 import com.livecoding.billingservice.dto.Customer;
+import com.livecoding.billingservice.dto.CustomerPage;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
 import java.util.List;
 
 @FeignClient(name = "customer-service")
@@ -14,6 +17,15 @@ public interface CustomerRestClient {
 
     @GetMapping("/api/customers")
     List<Customer> getAllCustomers();
+
+    // Pagination par curseur : after = null pour la première page
+    @GetMapping("/api/customers/page")
+    CustomerPage getCustomerPage(@RequestParam(value = "after", required = false) Long after,
+                                 @RequestParam("limit") int limit);
+
+    // Un seul appel HTTP pour plusieurs clients (evite le N+1)
+    @GetMapping("/api/customers/bulk")
+    List<Customer> findCustomersByIds(@RequestParam("ids") Collection<Long> ids);
 }
 // open feign permet de faire des appels rest de maniere declarative
 // il appel directement les services via leur nom sans passer par l'url grace a eureka
\ No newline at end of file
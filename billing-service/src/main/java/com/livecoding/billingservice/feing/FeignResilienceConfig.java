@@ -0,0 +1,19 @@
+package com.livecoding.billingservice.feing;
+
+import org.springframework.cloud.openfeign.CircuitBreakerNameResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Un circuit breaker (et un bulkhead) par service distant plutôt qu'un par méthode Feign :
+ * toutes les méthodes de ProductRestClient partagent l'instance resilience4j "inventory-service",
+ * celles de CustomerRestClient l'instance "customer-service" (voir application.properties).
+ */
+@Configuration
+public class FeignResilienceConfig {
+
+    @Bean
+    public CircuitBreakerNameResolver circuitBreakerNameResolver() {
+        return (feignClientName, target, method) -> feignClientName;
+    }
+}
@@ -0,0 +1,161 @@
+package com.livecoding.billingservice.feing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ========================================
+ * HEDGED REQUESTS (GET idempotents uniquement)
+ * ========================================
+ *
+ * Si la réponse n'est pas arrivée après le p95 observé du service, une seconde requête identique
+ * est envoyée (le load balancer choisit en général une autre instance) : la première réponse gagne,
+ * l'autre est abandonnée. Une instance dégradée ne pèse alors plus que ~5 % des appels sur la latence.
+ *
+ * - billing.hedging.enabled=false : appel direct, seule la latence est mesurée
+ * - Délai = max(p95, billing.hedging.min-delay), pas de hedge tant que le p95 n'est pas connu
+ * - Les deux requêtes passent par le circuit breaker et le bulkhead du client Feign
+ * - Profil virtual-threads : chaque tentative dans son virtual thread (billing.hedging.pool-size ignoré)
+ *
+ * Métriques : billing.hedging.latency{client} (p95), billing.hedging.requests{client, outcome=sent|won}
+ */
+@Component
+public class HedgedRequests {
+
+    private final boolean enabled;
+    private final Duration minDelay;
+    private final MeterRegistry meterRegistry;
+    private final Executor executor;
+    private final Map<String, ClientStats> stats = new ConcurrentHashMap<>();
+
+    public HedgedRequests(
+            MeterRegistry meterRegistry,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${billing.hedging.enabled:false}") boolean enabled,
+            @Value("${billing.hedging.min-delay:20ms}") Duration minDelay,
+            @Value("${billing.hedging.pool-size:32}") int poolSize
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minDelay = minDelay;
+        this.executor = virtualThreads
+                ? new VirtualThreadTaskExecutor("hedged-request-")
+                : Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("hedged-request-"));
+    }
+
+    /**
+     * Exécute un GET idempotent, doublé si le premier appel dépasse le p95 du service.
+     * Ne jamais l'utiliser pour un appel avec effet de bord.
+     */
+    public <T> T get(String client, Supplier<T> call) {
+        ClientStats clientStats = stats.computeIfAbsent(client, this::newStats);
+        if (!enabled) {
+            return clientStats.latency.record(call);
+        }
+        long hedgeDelay = clientStats.hedgeDelayNanos();
+        if (hedgeDelay <= 0) {
+            return clientStats.latency.record(call);
+        }
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> attempts = new ArrayList<>(2);
+        attempts.add(completion.submit(() -> clientStats.latency.record(call)));
+        try {
+            Future<T> done = completion.poll(hedgeDelay, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                clientStats.sent.increment();
+                Future<T> hedge = completion.submit(() -> clientStats.latency.record(call));
+                attempts.add(hedge);
+                done = completion.take();
+                if (done == hedge) {
+                    clientStats.won.increment();
+                }
+            }
+            try {
+                return done.get();
+            } catch (ExecutionException e) {
+                // Premier appel terminé en erreur : on garde l'autre s'il est encore en cours
+                if (attempts.size() == 1) {
+                    throw e;
+                }
+                return completion.take().get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during hedged request to " + client, e);
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private ClientStats newStats(String client) {
+        return new ClientStats(
+                Timer.builder("billing.hedging.latency")
+                        .description("Latence des GET idempotents vers les services distants")
+                        .tag("client", client)
+                        .publishPercentiles(0.95)
+                        .register(meterRegistry),
+                Counter.builder("billing.hedging.requests").tag("client", client).tag("outcome", "sent").register(meterRegistry),
+                Counter.builder("billing.hedging.requests").tag("client", client).tag("outcome", "won").register(meterRegistry));
+    }
+
+    private final class ClientStats {
+
+        private final Timer latency;
+        private final Counter sent;
+        private final Counter won;
+        // Le p95 est relu au plus une fois par seconde (takeSnapshot n'est pas gratuit)
+        private volatile long cachedDelayNanos;
+        private volatile long cachedAt;
+
+        private ClientStats(Timer latency, Counter sent, Counter won) {
+            this.latency = latency;
+            this.sent = sent;
+            this.won = won;
+        }
+
+        long hedgeDelayNanos() {
+            long now = System.nanoTime();
+            if (now - cachedAt > TimeUnit.SECONDS.toNanos(1)) {
+                double p95 = 0;
+                for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+                    p95 = percentile.value(TimeUnit.NANOSECONDS);
+                }
+                cachedDelayNanos = p95 <= 0 ? 0 : Math.max((long) p95, minDelay.toNanos());
+                cachedAt = now;
+            }
+            return cachedDelayNanos;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.livecoding.billingservice.feing;
+
+import com.livecoding.loadbalancer.InstanceLatencyStats;
+import com.livecoding.loadbalancer.PeakEwmaLoadBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * ========================================
+ * LOAD BALANCING SENSIBLE A LA LATENCE (customer-service, inventory-service)
+ * ========================================
+ *
+ * CustomerRestClient et ProductRestClient passent par {@link PeakEwmaLoadBalancer} au lieu du
+ * round robin : une réplique lente ne tire plus le p99 de tous les appels vers le haut.
+ *
+ * - billing.load-balancing.latency-aware=false : retour au round robin (les stats restent exportées)
+ * - Stats par instance : {@link InstanceLatencyStats} (module common-loadbalancer, partagé avec la
+ *   gateway), alimenté par {@link LoadBalancerStatsLifecycle}
+ * - Balancer créé dans le contexte LoadBalancer de chaque service : {@link PeakEwmaLoadBalancerConfiguration}
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LatencyAwareLoadBalancing {
+
+    @Bean
+    public InstanceLatencyStats instanceLatencyStats(
+            MeterRegistry meterRegistry,
+            @Value("${billing.load-balancing.decay-time:10s}") Duration decayTime,
+            @Value("${billing.load-balancing.default-latency:20ms}") Duration defaultLatency,
+            @Value("${billing.load-balancing.failure-threshold:5}") int failureThreshold,
+            @Value("${billing.load-balancing.base-ejection:30s}") Duration baseEjection,
+            @Value("${billing.load-balancing.max-ejection:5m}") Duration maxEjection,
+            @Value("${billing.load-balancing.max-ejected-percent:50}") double maxEjectedPercent,
+            @Value("${billing.load-balancing.latency-outlier-factor:5}") double latencyOutlierFactor
+    ) {
+        return new InstanceLatencyStats(meterRegistry, new InstanceLatencyStats.Settings(decayTime, defaultLatency,
+                failureThreshold, baseEjection, maxEjection, maxEjectedPercent, latencyOutlierFactor));
+    }
+
+    @Bean
+    public LoadBalancerStatsLifecycle loadBalancerStatsLifecycle(InstanceLatencyStats instanceLatencyStats) {
+        return new LoadBalancerStatsLifecycle(instanceLatencyStats);
+    }
+}
@@ -0,0 +1,89 @@
+package com.livecoding.billingservice.feing;
+
+import com.livecoding.loadbalancer.InstanceLatencyStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.CancellationException;
+
+/**
+ * ========================================
+ * MESURE PAR INSTANCE DES APPELS FEIGN
+ * ========================================
+ *
+ * Callbacks LoadBalancerLifecycle de chaque appel load-balancé (CustomerRestClient,
+ * ProductRestClient) : requêtes en cours, latence et échecs (exception, 5xx) de l'instance
+ * choisie, enregistrés dans {@link InstanceLatencyStats} (module common-loadbalancer).
+ *
+ * Un appel abandonné par l'appelant (tentative perdante d'un hedged request, fan-out annulé) se
+ * termine sur une erreur d'interruption : sa latence compte, pas l'échec. On se fie à l'exception
+ * de l'appel et non à l'état "interrupted" du thread, qui peut avoir été effacé ou concerner un
+ * autre appel (circuit breaker exécuté dans un autre thread).
+ */
+public class LoadBalancerStatsLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceLatencyStats stats;
+
+    public LoadBalancerStatsLifecycle(InstanceLatencyStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse == null || !lbResponse.hasServer()
+                || !(request.getContext() instanceof TimedRequestContext timed)) {
+            return;
+        }
+        timed.setRequestStartTime(System.nanoTime());
+        stats.instance(lbResponse.getServer()).requestStarted();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        Request<Object> request = completion.getLoadBalancerRequest();
+        if (completion.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()
+                || request == null || !(request.getContext() instanceof TimedRequestContext timed)
+                || timed.getRequestStartTime() == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        boolean failed = completion.status() == CompletionContext.Status.FAILED
+                || (completion.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError());
+        boolean cancelled = failed && isCancellation(completion.getThrowable());
+        stats.instance(lbResponse.getServer()).requestCompleted(now - timed.getRequestStartTime(), failed && !cancelled, now);
+    }
+
+    /**
+     * Erreur due à l'annulation de l'appel (interruption pendant l'I/O ou l'attente d'une connexion).
+     */
+    static boolean isCancellation(Throwable error) {
+        // Profondeur bornée : pas de boucle sur une chaîne de causes cyclique
+        for (int depth = 0; error != null && depth < 10; depth++, error = error.getCause()) {
+            if (error instanceof InterruptedException || error instanceof ClosedByInterruptException
+                    || error instanceof CancellationException) {
+                return true;
+            }
+            // Les timeouts (SocketTimeoutException, ConnectTimeoutException de HttpClient 5...) héritent
+            // aussi d'InterruptedIOException : ce sont de vrais échecs de l'instance
+            if (error instanceof InterruptedIOException && !(error instanceof SocketTimeoutException)
+                    && !error.getClass().getSimpleName().contains("Timeout")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.livecoding.billingservice.feing;
+
+import com.livecoding.loadbalancer.InstanceLatencyStats;
+import com.livecoding.loadbalancer.PeakEwmaLoadBalancer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration des contextes LoadBalancer (un par service distant), référencée par
+ * {@link LatencyAwareLoadBalancing}. Volontairement sans @Configuration : elle ne doit pas
+ * être chargée dans le contexte principal.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            InstanceLatencyStats instanceLatencyStats,
+            @Value("${billing.load-balancing.latency-aware:true}") boolean latencyAware
+    ) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        ObjectProvider<ServiceInstanceListSupplier> suppliers =
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+        return latencyAware
+                ? new PeakEwmaLoadBalancer(serviceId, suppliers, instanceLatencyStats)
+                : new RoundRobinLoadBalancer(suppliers, serviceId);
+    }
+}
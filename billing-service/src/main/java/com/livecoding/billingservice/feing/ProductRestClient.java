@@ -1,10 +1,17 @@
 package com.livecoding.billingservice.feing;
 
 import com.livecoding.billingservice.dto.Product;
+import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.dto.StockReservation;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.Collection;
 import java.util.List;
 
 @FeignClient(name = "inventory-service")
@@ -14,6 +21,26 @@ public interface ProductRestClient {
 
     @GetMapping("/api/products")
     List<Product> getAllProducts();
+
+    // Un seul appel HTTP pour tous les produits d'une facture (evite le N+1)
+    @GetMapping("/api/products/bulk")
+    List<Product> findProductsByIds(@RequestParam("ids") Collection<Long> ids);
+
+    // Stock : reserve (409 si insuffisant) puis commit une fois la facture enregistrée, sinon release.
+    // Le commit (idempotent, avec les lignes) est livré par l'outbox, voir OutboxRelay
+    @PostMapping("/api/products/stock/reservations")
+    StockReservation reserveStock(@RequestBody List<ProductSelection> lines);
+
+    // Id choisi par l'appelant : la réservation peut être annulée même si sa réponse n'est jamais lue
+    @PostMapping("/api/products/stock/reservations")
+    StockReservation reserveStock(@RequestParam("reservationId") String reservationId,
+                                  @RequestBody List<ProductSelection> lines);
+
+    @PostMapping("/api/products/stock/reservations/{reservationId}/commit")
+    void commitReservation(@PathVariable String reservationId, @RequestBody List<ProductSelection> lines);
+
+    @DeleteMapping("/api/products/stock/reservations/{reservationId}")
+    void releaseReservation(@PathVariable String reservationId);
 }
 
 // open feign permet de faire des appels rest de maniere declarative
@@ -0,0 +1,68 @@
+package com.livecoding.billingservice.kafka;
+
+import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.dto.StockCommit;
+import com.livecoding.billingservice.entites.OutboxEvent;
+import com.livecoding.billingservice.repository.OutboxEventRepository;
+import com.livecoding.events.BillCreatedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * ========================================
+ * TRANSACTIONAL OUTBOX - ÉCRITURE
+ * ========================================
+ *
+ * Au lieu de publier sur Kafka pendant la requête HTTP, l'événement est enregistré
+ * dans la table outbox DANS LA MÊME TRANSACTION que la facture :
+ * - facture commitée  => événement forcément publié un jour (par OutboxRelay)
+ * - rollback          => aucun événement fantôme
+ * - broker en panne   => la requête HTTP n'est ni bloquée ni en échec
+ *
+ * La confirmation de la réservation de stock passe par le même chemin (STOCK_COMMIT) :
+ * facture commitée => réservation confirmée un jour, même si inventory-service est injoignable.
+ */
+@Component
+public class BillEventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JsonMapper jsonMapper;
+
+    public BillEventOutbox(OutboxEventRepository outboxEventRepository, JsonMapper jsonMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(BillCreatedEvent event) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(OutboxEvent.Type.BILL_CREATED)
+                .billId(event.getBillId())
+                .payload(jsonMapper.writeValueAsString(event))
+                .createdAt(new Date())
+                .build());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendStockCommit(Long billId, String reservationId, List<ProductSelection> lines) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(OutboxEvent.Type.STOCK_COMMIT)
+                .billId(billId)
+                .payload(jsonMapper.writeValueAsString(new StockCommit(reservationId, lines)))
+                .createdAt(new Date())
+                .build());
+    }
+
+    public BillCreatedEvent read(OutboxEvent outboxEvent) {
+        return jsonMapper.readValue(outboxEvent.getPayload(), BillCreatedEvent.class);
+    }
+
+    public StockCommit readStockCommit(OutboxEvent outboxEvent) {
+        return jsonMapper.readValue(outboxEvent.getPayload(), StockCommit.class);
+    }
+}
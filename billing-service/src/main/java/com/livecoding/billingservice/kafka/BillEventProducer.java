@@ -1,11 +1,23 @@
 package com.livecoding.billingservice.kafka;
 
 import com.livecoding.events.BillCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 /**
  * ========================================
  * KAFKA PRODUCER - PRODUCTEUR D'ÉVÉNEMENTS
@@ -15,7 +27,7 @@ import org.springframework.stereotype.Service;
  * 
  * RÔLE DU PRODUCER:
  * 1. Prendre un événement Java (BillCreatedEvent)
- * 2. Le sérialiser en JSON
+ * 2. Le sérialiser (format binaire versionné de common-events, voir BillCreatedEventSerializer)
  * 3. L'envoyer au broker Kafka sur un TOPIC spécifique
  * 4. Le broker distribue ensuite le message aux consommateurs
  * 
@@ -28,6 +40,14 @@ import org.springframework.stereotype.Service;
  * - Key: Identifiant du message (billId) pour garantir l'ordre
  * - Value: Le contenu du message (BillCreatedEvent)
  * 
+ * MODE HAUT DÉBIT:
+ * - Envoi asynchrone avec callback (latence d'envoi + erreurs dans Micrometer)
+ * - Producteur idempotent (acks=all, enable.idempotence=true)
+ * - Profils linger/batch/compression: kafka-throughput, kafka-latency
+ * - Nombre d'envois en vol borné (kafka.producer.max-in-flight): au-delà, l'appelant
+ *   attend (backpressure) au lieu de remplir la mémoire du client Kafka
+ * - Logs par événement optionnels et échantillonnés (kafka.producer.log-sample-rate)
+ *
  * ANALOGIE:
  * Le Producer est comme un système de notification push:
  * - Vous créez une notification (événement)
@@ -42,62 +62,99 @@ public class BillEventProducer {
      * KafkaTemplate: API Spring pour envoyer des messages à Kafka
      */
     private final KafkaTemplate<String, BillCreatedEvent> kafkaTemplate;
-    
+    private final MeterRegistry meterRegistry;
+    private final Semaphore inFlight;
+    private final long backpressureTimeoutMs;
+    private final double logSampleRate;
+    private final Timer sendLatency;
 
     @Value("${kafka.topic.bill-created}")
     private String topicName;
 
 
-    public BillEventProducer(KafkaTemplate<String, BillCreatedEvent> kafkaTemplate) {
+    public BillEventProducer(
+            KafkaTemplate<String, BillCreatedEvent> kafkaTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.producer.max-in-flight:10000}") int maxInFlight,
+            @Value("${kafka.producer.backpressure-timeout-ms:5000}") long backpressureTimeoutMs,
+            @Value("${kafka.producer.log-sample-rate:0.0}") double logSampleRate
+    ) {
         this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.backpressureTimeoutMs = backpressureTimeoutMs;
+        this.logSampleRate = logSampleRate;
+        this.sendLatency = Timer.builder("billing.kafka.send.latency")
+                .description("Temps entre l'envoi et l'accuse de reception du broker")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("billing.kafka.send.in-flight", inFlight, s -> maxInFlight - s.availablePermits())
+                .register(meterRegistry);
     }
 
-    public void sendBillCreatedEvent(BillCreatedEvent event) {
-        // Log avant l'envoi (aide au debugging)
-        log.info("========================================");
-        log.info("📤 KAFKA PRODUCER: Publication d'un événement");
-        log.info("   → Topic: {}", topicName);
-        log.info("   → Key (billId): {}", event.getBillId());
-        log.info("   → Customer: {} ({})", event.getCustomerName(), event.getCustomerEmail());
-        log.info("   → Date: {}", event.getBillingDate());
-        log.info("   → Total items: {}", event.getTotalItems());
-        log.info("   → Total amount: {} €", event.getTotalAmount());
-        log.info("========================================");
-        
-        kafkaTemplate.send(topicName, event.getBillId().toString(), event);
-        
-        // Log après l'envoi
-        log.info("✅ Événement envoyé avec succès à Kafka !");
-        log.info("   Les consommateurs du topic '{}' vont recevoir cet événement", topicName);
-        
+    /**
+     * Envoi asynchrone : le future est complété par l'accusé de réception du broker.
+     * Bloque au plus kafka.producer.backpressure-timeout-ms si trop d'envois sont en vol.
+     */
+    public CompletableFuture<SendResult<String, BillCreatedEvent>> publish(BillCreatedEvent event) {
+        try {
+            if (!inFlight.tryAcquire(backpressureTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return failed(event, new IllegalStateException(
+                        "Trop d'envois Kafka en vol (backpressure), billId=" + event.getBillId()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(event, e);
+        }
 
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, BillCreatedEvent>> future;
+        try {
+            future = kafkaTemplate.send(topicName, event.getBillId().toString(), event);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return failed(event, e);
+        }
+        return future.whenComplete((result, error) -> {
+            inFlight.release();
+            if (error != null) {
+                recordError(event, error);
+                return;
+            }
+            sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                log.info("📤 BillCreatedEvent {} publié (partition={}, offset={})", event.getBillId(),
+                        result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+            }
+        });
     }
-    
-    /*
-     * ========================================
-     * MÉTHODES AVANCÉES (Optionnel)
-     * ========================================
-     * 
-     * Vous pourriez ajouter d'autres méthodes pour:
-     * 
-     * 1. Envoi avec callback:
-     *    public void sendWithCallback(BillCreatedEvent event) {
-     *        kafkaTemplate.send(topicName, event.getBillId().toString(), event)
-     *            .addCallback(
-     *                success -> log.info("✅ Offset: {}", success.getRecordMetadata().offset()),
-     *                failure -> log.error("❌ Erreur: {}", failure.getMessage())
-     *            );
-     *    }
-     * 
-     * 2. Envoi synchrone (bloquant):
-     *    public void sendSync(BillCreatedEvent event) throws Exception {
-     *        kafkaTemplate.send(topicName, event.getBillId().toString(), event).get();
-     *        // get() bloque jusqu'à confirmation
-     *    }
-     * 
-     * 3. Envoi en batch (lot):
-     *    public void sendBatch(List<BillCreatedEvent> events) {
-     *        events.forEach(this::sendBillCreatedEvent);
-     *    }
+
+    /**
+     * Envoi d'un lot : tous les envois partent sans attendre les précédents
+     * (le client Kafka les regroupe selon linger.ms / batch.size).
      */
+    public List<CompletableFuture<SendResult<String, BillCreatedEvent>>> sendBatch(List<BillCreatedEvent> events) {
+        List<CompletableFuture<SendResult<String, BillCreatedEvent>>> futures = new ArrayList<>(events.size());
+        for (BillCreatedEvent event : events) {
+            futures.add(publish(event));
+        }
+        return futures;
+    }
+
+    public void sendBillCreatedEvent(BillCreatedEvent event) {
+        publish(event);
+    }
+
+    private CompletableFuture<SendResult<String, BillCreatedEvent>> failed(BillCreatedEvent event, Throwable error) {
+        recordError(event, error);
+        return CompletableFuture.failedFuture(error);
+    }
+
+    private void recordError(BillCreatedEvent event, Throwable error) {
+        Counter.builder("billing.kafka.send.errors")
+                .tag("exception", error.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+        log.warn("❌ Échec de publication du BillCreatedEvent {}: {}", event.getBillId(), error.getMessage());
+    }
 }
@@ -0,0 +1,65 @@
+package com.livecoding.billingservice.kafka;
+
+import com.livecoding.billingservice.cache.CatalogCache;
+import com.livecoding.billingservice.dto.Customer;
+import com.livecoding.billingservice.dto.Product;
+import com.livecoding.events.CustomerChangedEvent;
+import com.livecoding.events.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tient le {@link CatalogCache} à jour à partir des événements publiés par
+ * inventory-service et customer-service.
+ *
+ * Chaque instance de billing-service doit recevoir TOUS les événements (diffusion),
+ * d'où un groupId unique par instance et auto.offset.reset=latest (le cache part vide).
+ */
+@Service
+@Slf4j
+public class CatalogEventConsumer {
+
+    private final CatalogCache catalogCache;
+
+    public CatalogEventConsumer(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+
+    @KafkaListener(
+            topics = "${kafka.topic.product-changed}",
+            groupId = "billing-catalog-${random.uuid}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            catalogCache.evictProduct(event.getProductId());
+            return;
+        }
+        Product product = new Product();
+        product.setId(event.getProductId());
+        product.setName(event.getName());
+        product.setPrice(event.getPrice());
+        product.setQuantity(event.getQuantity());
+        catalogCache.putProduct(product);
+        log.debug("Cache catalogue: produit {} mis à jour", event.getProductId());
+    }
+
+    @KafkaListener(
+            topics = "${kafka.topic.customer-changed}",
+            groupId = "billing-catalog-${random.uuid}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (event.isDeleted()) {
+            catalogCache.evictCustomer(event.getCustomerId());
+            return;
+        }
+        Customer customer = new Customer();
+        customer.setId(event.getCustomerId());
+        customer.setName(event.getName());
+        customer.setEmail(event.getEmail());
+        catalogCache.putCustomer(customer);
+        log.debug("Cache catalogue: client {} mis à jour", event.getCustomerId());
+    }
+}
@@ -0,0 +1,253 @@
+package com.livecoding.billingservice.kafka;
+
+import com.livecoding.billingservice.dto.StockCommit;
+import com.livecoding.billingservice.entites.OutboxEvent;
+import com.livecoding.billingservice.feing.ProductRestClient;
+import com.livecoding.billingservice.repository.OutboxEventRepository;
+import com.livecoding.events.BillCreatedEvent;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ========================================
+ * TRANSACTIONAL OUTBOX - RELAY
+ * ========================================
+ *
+ * Tâche de fond qui vide la table outbox vers "bill-created-topic" (BILL_CREATED) et
+ * inventory-service (STOCK_COMMIT, confirmation idempotente des réservations de stock) :
+ * 1. réclame un lot (billing.outbox.batch-size) dans une transaction courte (claimedUntil)
+ * 2. envoie tout le lot en asynchrone, hors transaction (les envois sont pipelinés), puis
+ *    confirme les réservations de stock pendant que Kafka accuse réception
+ * 3. attend les accusés de réception puis, dans une seconde transaction courte, supprime les
+ *    lignes livrées et rend les autres au prochain passage
+ *
+ * Garantie "at-least-once" : une ligne non acquittée reste dans l'outbox et sera relivrée.
+ * Une ligne illisible, ou une confirmation refusée par inventory-service (4xx), est parquée
+ * (parked) et n'est plus relue.
+ *
+ * MÉTRIQUES:
+ * - billing.outbox.depth         : nombre d'événements en attente
+ * - billing.outbox.parked        : lignes illisibles ou refusées mises de côté (à traiter à la main)
+ * - billing.outbox.relay.lag     : âge (ms) du plus vieil événement en attente
+ * - billing.outbox.published     : événements publiés
+ * - billing.outbox.stock.committed : réservations de stock confirmées
+ * - billing.outbox.relay.batch   : durée d'un lot
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final long CLAIM_MARGIN_MS = 5_000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final BillEventOutbox billEventOutbox;
+    private final BillEventProducer billEventProducer;
+    private final ProductRestClient productRestClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+
+    private final AtomicLong lagMs = new AtomicLong();
+    private final Counter published;
+    private final Counter stockCommitted;
+    private final Timer batchTimer;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            BillEventOutbox billEventOutbox,
+            BillEventProducer billEventProducer,
+            ProductRestClient productRestClient,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${billing.outbox.batch-size:500}") int batchSize,
+            @Value("${billing.outbox.send-timeout-ms:30000}") long sendTimeoutMs
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.billEventOutbox = billEventOutbox;
+        this.billEventProducer = billEventProducer;
+        this.productRestClient = productRestClient;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+
+        Gauge.builder("billing.outbox.depth", outboxEventRepository, OutboxEventRepository::countByParkedFalse)
+                .description("Evenements en attente dans l'outbox")
+                .register(meterRegistry);
+        Gauge.builder("billing.outbox.parked", outboxEventRepository, OutboxEventRepository::countByParkedTrue)
+                .description("Lignes de l'outbox illisibles ou refusees, mises de cote")
+                .register(meterRegistry);
+        Gauge.builder("billing.outbox.relay.lag", lagMs, AtomicLong::get)
+                .description("Age du plus vieil evenement non publie")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.published = Counter.builder("billing.outbox.published").register(meterRegistry);
+        this.stockCommitted = Counter.builder("billing.outbox.stock.committed").register(meterRegistry);
+        this.batchTimer = Timer.builder("billing.outbox.relay.batch").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${billing.outbox.relay-interval-ms:200}")
+    public void relay() {
+        int relayed;
+        do {
+            relayed = batchTimer.record(this::relayBatch);
+        } while (relayed == batchSize);
+
+        Date oldest = outboxEventRepository.findOldestCreatedAt();
+        lagMs.set(oldest == null ? 0 : System.currentTimeMillis() - oldest.getTime());
+    }
+
+    private int relayBatch() {
+        ClaimedBatch batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.fetched() == 0) {
+            return 0;
+        }
+
+        // Envois et attente des accusés de réception HORS transaction : aucune ligne ni connexion
+        // JDBC n'est retenue pendant que Kafka ou inventory-service répondent
+        List<Long> acknowledged = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        Map<Long, String> rejected = new LinkedHashMap<>();
+        List<? extends CompletableFuture<?>> sends = batch.events().isEmpty()
+                ? List.of() : billEventProducer.sendBatch(batch.events());
+        long deadline = System.currentTimeMillis() + sendTimeoutMs;
+
+        for (int i = 0; i < batch.commits().size(); i++) {
+            Long id = batch.commitIds().get(i);
+            StockCommit commit = batch.commits().get(i);
+            if (Thread.currentThread().isInterrupted()) {
+                failed.add(id);
+                continue;
+            }
+            try {
+                productRestClient.commitReservation(commit.getReservationId(), commit.getLines());
+                acknowledged.add(id);
+                stockCommitted.increment();
+            } catch (RuntimeException e) {
+                if (isClientError(e)) {
+                    rejected.put(id, String.valueOf(e.getMessage()));
+                } else {
+                    failed.add(id);
+                    log.warn("Outbox: reservation {} non confirmee, nouvel essai au prochain passage: {}",
+                            commit.getReservationId(), e.getMessage());
+                }
+            }
+        }
+
+        int publishedCount = 0;
+        for (int i = 0; i < sends.size(); i++) {
+            Long id = batch.eventIds().get(i);
+            if (Thread.currentThread().isInterrupted()) {
+                failed.add(id);
+                continue;
+            }
+            try {
+                sends.get(i).get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+                acknowledged.add(id);
+                publishedCount++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(id);
+            } catch (Exception e) {
+                failed.add(id);
+                log.warn("Outbox: evenement {} (bill {}) non publie, nouvel essai au prochain passage: {}",
+                        id, batch.events().get(i).getBillId(), e.getMessage());
+            }
+        }
+
+        // Seconde transaction, courte : suppression des lignes livrées, les autres sont rendues
+        if (batch.size() > 0) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!acknowledged.isEmpty()) {
+                    outboxEventRepository.deleteAllByIdInBatch(acknowledged);
+                }
+                if (!failed.isEmpty()) {
+                    outboxEventRepository.releaseClaims(failed);
+                }
+                rejected.forEach((id, error) -> {
+                    log.error("❌ Outbox: confirmation de stock {} refusee par inventory-service, mise de cote: {}", id, error);
+                    outboxEventRepository.park(id, truncate(error));
+                });
+            });
+        }
+        published.increment(publishedCount);
+        return failed.isEmpty() ? batch.fetched() : 0;
+    }
+
+    /**
+     * Réclame un lot (claimedUntil) dans une transaction courte. Un payload illisible est parqué
+     * (parked, lastError) au lieu de faire échouer la transaction : sinon le même lot serait relu
+     * à chaque passage et l'outbox resterait bloquée derrière lui.
+     */
+    private ClaimedBatch claimBatch() {
+        Date now = new Date();
+        List<OutboxEvent> rows = outboxEventRepository.findBatch(now, Limit.of(batchSize));
+        // Au-delà, un relay arrêté en plein envoi rend la main : la ligne sera relivrée (at-least-once)
+        Date claimedUntil = new Date(now.getTime() + sendTimeoutMs + CLAIM_MARGIN_MS);
+
+        ClaimedBatch batch = new ClaimedBatch(rows.size(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>());
+        for (OutboxEvent row : rows) {
+            try {
+                if (row.getType() == OutboxEvent.Type.STOCK_COMMIT) {
+                    batch.commits().add(billEventOutbox.readStockCommit(row));
+                    batch.commitIds().add(row.getId());
+                } else {
+                    batch.events().add(billEventOutbox.read(row));
+                    batch.eventIds().add(row.getId());
+                }
+                row.setClaimedUntil(claimedUntil);
+            } catch (RuntimeException e) {
+                park(row, e);
+            }
+        }
+        return batch;
+    }
+
+    private void park(OutboxEvent row, RuntimeException error) {
+        String message = String.valueOf(error.getMessage());
+        row.setParked(true);
+        row.setAttempts(row.getAttempts() + 1);
+        row.setLastError(truncate(message));
+        log.error("❌ Outbox: evenement {} (bill {}) illisible, mis de cote: {}", row.getId(), row.getBillId(), message);
+    }
+
+    // 4xx d'inventory-service (éventuellement enveloppée par le circuit breaker) : inutile de rejouer
+    private static boolean isClientError(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof FeignException feign) {
+                return feign.status() >= 400 && feign.status() < 500;
+            }
+        }
+        return false;
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    private record ClaimedBatch(int fetched, List<Long> eventIds, List<BillCreatedEvent> events,
+                                List<Long> commitIds, List<StockCommit> commits) {
+
+        int size() {
+            return eventIds.size() + commitIds.size();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.livecoding.billingservice.kafkaprocessing;
+
+import com.livecoding.events.BillCreatedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Agrégat Kafka Streams par client : nombre de factures et chiffre d'affaires
+ * (valeur des state stores customer-revenue-*).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRevenue {
+    private long billCount;
+    private double revenue;
+
+    public CustomerRevenue add(BillCreatedEvent event) {
+        billCount++;
+        revenue += event.getTotalAmount();
+        return this;
+    }
+}
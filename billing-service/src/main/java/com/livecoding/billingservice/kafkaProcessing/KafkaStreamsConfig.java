@@ -1,32 +1,131 @@
 package com.livecoding.billingservice.kafkaprocessing;
 
 import com.livecoding.events.BillCreatedEvent;
+import com.livecoding.events.serde.BillCreatedEventSerde;
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KGroupedStream;
 import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Predicate;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
 import org.springframework.kafka.support.serializer.JacksonJsonSerde;
-import org.springframework.kafka.support.serializer.JsonSerde;
 import org.apache.kafka.streams.StreamsBuilder;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Lazy;
 
+import java.time.Duration;
+
+/**
+ * ========================================
+ * KAFKA STREAMS - CHIFFRE D'AFFAIRES PAR CLIENT
+ * ========================================
+ *
+ * À partir de bill-created-topic (re-partitionné par customerId) :
+ * - customer-revenue-total    : total depuis le début (KTable)
+ * - customer-revenue-tumbling : fenêtres fixes (billing.revenue.tumbling-window, 1h par défaut)
+ * - customer-revenue-hopping  : fenêtres glissantes (billing.revenue.hopping-window / hopping-advance,
+ *                               24h avancées d'1h par défaut)
+ *
+ * Les stores sont persistants (RocksDB + topic changelog) et interrogés directement
+ * par GET /bills/revenue/... (interactive queries) : lecture O(1) par client au lieu
+ * d'un scan de la table bill.
+ *
+ * Le temps de l'événement est billingDate (à défaut, le timestamp du message).
+ */
 @Configuration
 @Slf4j
 public class KafkaStreamsConfig {
 
+    public static final String REVENUE_TOTAL_STORE = "customer-revenue-total";
+    public static final String REVENUE_TUMBLING_STORE = "customer-revenue-tumbling";
+    public static final String REVENUE_HOPPING_STORE = "customer-revenue-hopping";
+
+    /**
+     * Factures > 500€ (mesuré par le module benchmarks).
+     */
+    public static final Predicate<String, BillCreatedEvent> HIGH_VALUE_BILL =
+            (key, event) -> event.getTotalAmount() > 500;
+
+    @Value("${billing.revenue.tumbling-window:1h}")
+    private Duration tumblingWindow;
+
+    @Value("${billing.revenue.hopping-window:24h}")
+    private Duration hoppingWindow;
+
+    @Value("${billing.revenue.hopping-advance:1h}")
+    private Duration hoppingAdvance;
+
+    @Value("${billing.revenue.grace:5m}")
+    private Duration grace;
+
+    @Value("${billing.revenue.retention:7d}")
+    private Duration retention;
+
     @Bean
     public KStream<String, BillCreatedEvent> kStream(StreamsBuilder builder) {
+        // Binaire versionné ; les anciens messages JSON du topic restent lisibles
+        BillCreatedEventSerde billSerde =
+                new BillCreatedEventSerde(new JacksonJsonSerde<>(BillCreatedEvent.class).deserializer());
+
         KStream<String, BillCreatedEvent> stream = builder.stream(
                 "bill-created-topic",
-                Consumed.with(Serdes.String(), new JacksonJsonSerde<>(BillCreatedEvent.class))
+                Consumed.with(Serdes.String(), billSerde)
+                        .withTimestampExtractor((record, partitionTime) ->
+                                record.value() instanceof BillCreatedEvent event && event.getBillingDate() != null
+                                        ? event.getBillingDate().getTime()
+                                        : record.timestamp())
         );
 
         // Filtre >500€
-        stream.filter((key, event) -> event.getTotalAmount() > 500)
+        stream.filter(HIGH_VALUE_BILL)
                 .foreach((key, event) -> log.info("💡 Stream: Facture > 500€: {}", event));
 
+        // Clé du topic = billId : re-partitionnement par client avant agrégation
+        KGroupedStream<Long, BillCreatedEvent> byCustomer = stream
+                .filter((key, event) -> event.getCustomerId() != null)
+                .groupBy((key, event) -> event.getCustomerId(),
+                        Grouped.with("bills-by-customer", Serdes.Long(), billSerde));
+
+        Serde<CustomerRevenue> revenueSerde = new JacksonJsonSerde<>(CustomerRevenue.class).noTypeInfo();
+
+        byCustomer.aggregate(CustomerRevenue::new, (customerId, event, revenue) -> revenue.add(event),
+                Materialized.<Long, CustomerRevenue, KeyValueStore<Bytes, byte[]>>as(REVENUE_TOTAL_STORE)
+                        .withKeySerde(Serdes.Long())
+                        .withValueSerde(revenueSerde));
+
+        byCustomer.windowedBy(TimeWindows.ofSizeAndGrace(tumblingWindow, grace))
+                .aggregate(CustomerRevenue::new, (customerId, event, revenue) -> revenue.add(event),
+                        Materialized.<Long, CustomerRevenue, WindowStore<Bytes, byte[]>>as(REVENUE_TUMBLING_STORE)
+                                .withKeySerde(Serdes.Long())
+                                .withValueSerde(revenueSerde)
+                                .withRetention(retention));
+
+        byCustomer.windowedBy(TimeWindows.ofSizeAndGrace(hoppingWindow, grace).advanceBy(hoppingAdvance))
+                .aggregate(CustomerRevenue::new, (customerId, event, revenue) -> revenue.add(event),
+                        Materialized.<Long, CustomerRevenue, WindowStore<Bytes, byte[]>>as(REVENUE_HOPPING_STORE)
+                                .withKeySerde(Serdes.Long())
+                                .withValueSerde(revenueSerde)
+                                .withRetention(retention));
+
         return stream;
     }
+
+    /**
+     * Accès aux state stores locaux et localisation de l'instance propriétaire d'une clé
+     * (spring.kafka.streams.properties.application.server).
+     */
+    @Bean
+    public KafkaStreamsInteractiveQueryService kafkaStreamsInteractiveQueryService(StreamsBuilderFactoryBean factoryBean) {
+        return new KafkaStreamsInteractiveQueryService(factoryBean);
+    }
 }
@@ -1,9 +1,62 @@
 package com.livecoding.billingservice.repository;
 
+import com.livecoding.billingservice.dto.BillLine;
 import com.livecoding.billingservice.entites.Bill;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RepositoryRestResource
 public interface BillRepository extends JpaRepository<Bill, Long> {
+
+    String FILTER = "(:customerId is null or b.customerId = :customerId) "
+            + "and (:from is null or b.billingDate >= :from) "
+            + "and (:to is null or b.billingDate < :to) ";
+
+    /**
+     * Pagination par curseur (keyset) : "id > after" au lieu d'un OFFSET,
+     * le coût d'une page ne dépend pas de sa position.
+     */
+    @RestResource(exported = false)
+    @Query("select b from Bill b where b.id > :after and " + FILTER + "order by b.id")
+    List<Bill> findPage(@Param("after") long after,
+                        @Param("customerId") Long customerId,
+                        @Param("from") Date from,
+                        @Param("to") Date to,
+                        Limit limit);
+
+    /**
+     * Facture et toutes ses lignes en UNE requête SQL (projection DTO, rien n'est chargé dans le contexte).
+     * Liste vide si la facture n'existe pas.
+     */
+    @RestResource(exported = false)
+    @Query("select new com.livecoding.billingservice.dto.BillLine("
+            + "b.id, b.billingDate, b.customerId, i.id, i.productId, i.quantity, i.unitPrice) "
+            + "from Bill b left join ProductItem i on i.bill = b "
+            + "where b.id = :id order by i.id")
+    List<BillLine> findFullBill(@Param("id") Long id);
+
+    /**
+     * Lecture en flux (curseur JDBC avec fetch size borné) pour l'export NDJSON.
+     * Doit être consommé dans une transaction et fermé après usage.
+     */
+    @RestResource(exported = false)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Bill b where " + FILTER + "order by b.id")
+    Stream<Bill> streamAll(@Param("customerId") Long customerId,
+                           @Param("from") Date from,
+                           @Param("to") Date to);
 }
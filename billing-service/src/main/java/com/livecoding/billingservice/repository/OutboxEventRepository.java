@@ -0,0 +1,52 @@
+package com.livecoding.billingservice.repository;
+
+import com.livecoding.billingservice.entites.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@RepositoryRestResource(exported = false)
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Prochain lot à publier, verrouillé le temps de le réclamer (SKIP LOCKED : plusieurs instances
+     * du relay se partagent l'outbox sans publier deux fois la même ligne). Les lignes réclamées
+     * par un autre relay (claimedUntil) et les lignes parquées sont ignorées.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from OutboxEvent o where o.parked = false and (o.claimedUntil is null or o.claimedUntil < :now) order by o.id")
+    List<OutboxEvent> findBatch(@Param("now") Date now, Limit limit);
+
+    /**
+     * Envoi échoué : la ligne redevient disponible pour le prochain passage du relay.
+     */
+    @Modifying
+    @Query("update OutboxEvent o set o.claimedUntil = null, o.attempts = o.attempts + 1 where o.id in :ids")
+    int releaseClaims(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Livraison refusée définitivement : la ligne est mise de côté (lastError) et n'est plus relue.
+     */
+    @Modifying
+    @Query("update OutboxEvent o set o.parked = true, o.claimedUntil = null, o.attempts = o.attempts + 1, o.lastError = :error where o.id = :id")
+    int park(@Param("id") Long id, @Param("error") String error);
+
+    long countByParkedFalse();
+
+    long countByParkedTrue();
+
+    @Query("select min(o.createdAt) from OutboxEvent o where o.parked = false")
+    Date findOldestCreatedAt();
+}
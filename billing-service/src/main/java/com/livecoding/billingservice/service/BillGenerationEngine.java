@@ -0,0 +1,285 @@
+package com.livecoding.billingservice.service;
+
+import com.livecoding.billingservice.dto.Customer;
+import com.livecoding.billingservice.dto.CustomerPage;
+import com.livecoding.billingservice.dto.GenerationReport;
+import com.livecoding.billingservice.dto.Product;
+import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.entites.Bill;
+import com.livecoding.billingservice.entites.ProductItem;
+import com.livecoding.billingservice.feing.ProductRestClient;
+import com.livecoding.billingservice.kafka.BillEventOutbox;
+import com.livecoding.billingservice.repository.BillRepository;
+import com.livecoding.billingservice.repository.ProductItemRepository;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * ========================================
+ * MOTEUR DE GENERATION MASSIVE DES FACTURES
+ * ========================================
+ *
+ * - Les clients sont lus page par page (une page = un chunk de billing.generation.chunk-size) :
+ *   la base clients n'est jamais chargee en entier, ni ici ni dans customer-service
+ * - Chaque chunk est ecrit dans sa propre transaction, sur un pool de threads borne
+ *   (billing.generation.parallelism), un semaphore limitant les chunks en attente
+ * - Les ids viennent de sequences (allocationSize=50) : Hibernate peut donc regrouper
+ *   les INSERT en batch JDBC (spring.jpa.properties.hibernate.jdbc.batch_size)
+ * - La generation tourne en arriere-plan : la requete HTTP rend la main immediatement
+ * - Le stock de chaque chunk est reserve (un appel groupe) avant l'ecriture, et sa confirmation
+ *   part dans l'outbox avec les factures : stock insuffisant = generation arretee (FAILED)
+ */
+@Component
+@Slf4j
+public class BillGenerationEngine {
+
+    private final BillRepository billRepository;
+    private final ProductItemRepository productItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRestClient productRestClient;
+    private final BillEventOutbox billEventOutbox;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private final ExecutorService coordinator =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("bill-generation-"));
+    private final ExecutorService workers;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicReference<GenerationReport> lastReport = new AtomicReference<>(GenerationReport.idle());
+    private final LongAdder billsWritten = new LongAdder();
+    private final LongAdder itemsWritten = new LongAdder();
+    private volatile long startedAt;
+    private volatile int currentCustomers;
+    private volatile int currentProducts;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BillGenerationEngine(
+            BillRepository billRepository,
+            ProductItemRepository productItemRepository,
+            TransactionTemplate transactionTemplate,
+            ProductRestClient productRestClient,
+            BillEventOutbox billEventOutbox,
+            @Value("${billing.generation.chunk-size:500}") int chunkSize,
+            @Value("${billing.generation.parallelism:4}") int parallelism
+    ) {
+        this.billRepository = billRepository;
+        this.productItemRepository = productItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.productRestClient = productRestClient;
+        this.billEventOutbox = billEventOutbox;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.workers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("bill-generation-worker-"));
+    }
+
+    /**
+     * Lance la generation en arriere-plan et retourne immediatement l'etat RUNNING.
+     *
+     * @param customerPages (after, limit) -> page suivante de clients (after = null pour la premiere)
+     * @throws IllegalStateException si une generation est deja en cours
+     */
+    public GenerationReport start(BiFunction<Long, Integer, CustomerPage> customerPages, List<Product> products) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Une generation de factures est deja en cours");
+        }
+        billsWritten.reset();
+        itemsWritten.reset();
+        currentCustomers = 0;
+        currentProducts = products.size();
+        startedAt = System.nanoTime();
+
+        try {
+            coordinator.execute(() -> {
+                try {
+                    run(customerPages, products);
+                    lastReport.set(snapshot("COMPLETED", null));
+                    GenerationReport report = lastReport.get();
+                    log.info("✅ Generation terminee: {} factures, {} items en {} ms ({} lignes/s)",
+                            report.getBillsWritten(), report.getItemsWritten(),
+                            report.getElapsedMs(), Math.round(report.getRowsPerSecond()));
+                } catch (RuntimeException e) {
+                    log.error("❌ Echec de la generation des factures", e);
+                    lastReport.set(snapshot("FAILED", e.getMessage()));
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Tache refusee (coordinateur arrete...) : elle ne s'executera jamais, le verrou est libere ici
+            running.set(false);
+            throw e;
+        }
+        return snapshot("RUNNING", null);
+    }
+
+    public GenerationReport status() {
+        return running.get() ? snapshot("RUNNING", null) : lastReport.get();
+    }
+
+    private void run(BiFunction<Long, Integer, CustomerPage> customerPages, List<Product> products) {
+        // Au plus 2 chunks en attente par worker : la memoire reste bornee quel que soit le nombre de clients
+        Semaphore permits = new Semaphore(parallelism * 2);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        // Premier chunk en echec (stock epuise...) : plus aucune page n'est lue
+        AtomicReference<Throwable> chunkFailure = new AtomicReference<>();
+
+        try {
+            Long after = null;
+            do {
+                // La page suivante est lue pendant que les workers ecrivent les precedentes
+                permits.acquireUninterruptibly();
+                CustomerPage page;
+                try {
+                    page = customerPages.apply(after, chunkSize);
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+                List<Customer> chunk = page.getItems();
+                if (chunk.isEmpty()) {
+                    permits.release();
+                    break;
+                }
+                currentCustomers += chunk.size();
+                futures.add(CompletableFuture
+                        .runAsync(() -> writeChunk(chunk, products), workers)
+                        .whenComplete((ignored, error) -> {
+                            if (error != null) {
+                                chunkFailure.compareAndSet(null, error);
+                            }
+                            permits.release();
+                        }));
+                after = page.getNextCursor();
+            } while (after != null && chunkFailure.get() == null);
+        } finally {
+            // Meme si la lecture d'une page echoue, les chunks deja lances se terminent avant le bilan
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+    }
+
+    private void writeChunk(List<Customer> chunk, List<Product> products) {
+        Date billingDate = new Date();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Bill> bills = new ArrayList<>(chunk.size());
+        List<ProductItem> items = new ArrayList<>(chunk.size() * products.size());
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+
+        for (Customer customer : chunk) {
+            Bill bill = Bill.builder()
+                    .billingDate(billingDate)
+                    .customerId(customer.getId())
+                    .build();
+            bills.add(bill);
+
+            for (Product product : products) {
+                int quantity = 1 + random.nextInt(10);
+                items.add(ProductItem.builder()
+                        .bill(bill)
+                        .productId(product.getId())
+                        .quantity(quantity)
+                        .unitPrice(product.getPrice())
+                        .build());
+                quantities.merge(product.getId(), quantity, Integer::sum);
+            }
+        }
+
+        // Une reservation pour tout le chunk (toutes les lignes ou aucune), comme createBillForCustomer
+        List<ProductSelection> lines = toSelections(quantities);
+        String reservationId = lines.isEmpty() ? null : reserve(lines, chunk.size());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                billRepository.saveAll(bills);
+                productItemRepository.saveAll(items);
+                if (reservationId != null) {
+                    billEventOutbox.appendStockCommit(bills.get(0).getId(), reservationId, lines);
+                }
+                // Envoi des batchs puis liberation du contexte de persistance du chunk
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            if (reservationId != null) {
+                releaseQuietly(reservationId);
+            }
+            throw e;
+        }
+        billsWritten.add(chunk.size());
+        itemsWritten.add((long) chunk.size() * products.size());
+    }
+
+    private String reserve(List<ProductSelection> lines, int bills) {
+        try {
+            return productRestClient.reserveStock(lines).getReservationId();
+        } catch (FeignException.Conflict e) {
+            throw new OutOfStockException("Insufficient stock for a chunk of " + bills + " bills", e);
+        }
+    }
+
+    private void releaseQuietly(String reservationId) {
+        try {
+            productRestClient.releaseReservation(reservationId);
+        } catch (RuntimeException e) {
+            log.warn("Annulation de la reservation {} impossible, elle expirera d'elle-meme: {}",
+                    reservationId, e.getMessage());
+        }
+    }
+
+    private static List<ProductSelection> toSelections(Map<Long, Integer> quantities) {
+        List<ProductSelection> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            ProductSelection line = new ProductSelection();
+            line.setProductId(productId);
+            line.setQuantity(quantity);
+            lines.add(line);
+        });
+        return lines;
+    }
+
+    private GenerationReport snapshot(String status, String error) {
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+        long bills = billsWritten.sum();
+        long items = itemsWritten.sum();
+        return GenerationReport.builder()
+                .status(status)
+                .customers(currentCustomers)
+                .products(currentProducts)
+                .billsWritten(bills)
+                .itemsWritten(items)
+                .elapsedMs(elapsedMs)
+                .rowsPerSecond(elapsedMs == 0 ? 0.0 : (bills + items) * 1000.0 / elapsedMs)
+                .error(error)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+}
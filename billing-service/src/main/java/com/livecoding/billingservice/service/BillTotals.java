@@ -0,0 +1,55 @@
+package com.livecoding.billingservice.service;
+
+import com.livecoding.billingservice.dto.Product;
+import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.entites.Bill;
+import com.livecoding.billingservice.entites.ProductItem;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lignes et totaux d'une facture à partir des produits choisis
+ * (boucle de createBillForCustomer, mesurée par le module benchmarks).
+ * Les produits inconnus sont ignorés.
+ */
+@Getter
+public final class BillTotals {
+
+    private final List<ProductItem> items;
+    private final int totalItems;
+    private final double totalAmount;
+
+    private BillTotals(List<ProductItem> items, int totalItems, double totalAmount) {
+        this.items = items;
+        this.totalItems = totalItems;
+        this.totalAmount = totalAmount;
+    }
+
+    public static BillTotals compute(Bill bill, List<ProductSelection> selections, Map<Long, Product> products) {
+        List<ProductItem> items = new ArrayList<>(selections.size());
+        int totalItems = 0;
+        double totalAmount = 0.0;
+
+        for (ProductSelection selection : selections) {
+            Product product = products.get(selection.getProductId());
+            if (product != null) {
+                int quantity = selection.getQuantity();
+                double itemTotal = quantity * product.getPrice();
+
+                items.add(ProductItem.builder()
+                        .bill(bill)
+                        .productId(product.getId())
+                        .quantity(quantity)
+                        .unitPrice(product.getPrice())
+                        .build());
+
+                totalItems += quantity;
+                totalAmount += itemTotal;
+            }
+        }
+        return new BillTotals(items, totalItems, totalAmount);
+    }
+}
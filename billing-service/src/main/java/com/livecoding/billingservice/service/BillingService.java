@@ -1,6 +1,12 @@
 package com.livecoding.billingservice.service;
 
+import com.livecoding.billingservice.cache.CatalogCache;
+import com.livecoding.billingservice.dto.BillLine;
+import com.livecoding.billingservice.dto.BillPage;
+import com.livecoding.billingservice.dto.BillView;
+import com.livecoding.billingservice.dto.GenerationReport;
 import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.dto.StockReservation;
 import com.livecoding.events.BillCreatedEvent;
 import com.livecoding.billingservice.dto.Customer;
 import com.livecoding.billingservice.dto.Product;
@@ -8,24 +14,51 @@ import com.livecoding.billingservice.entites.Bill;
 import com.livecoding.billingservice.entites.ProductItem;
 import com.livecoding.billingservice.feing.CustomerRestClient;
 import com.livecoding.billingservice.feing.ProductRestClient;
-import com.livecoding.billingservice.kafka.BillEventProducer;
+import com.livecoding.billingservice.kafka.BillEventOutbox;
 import com.livecoding.billingservice.repository.BillRepository;
 import com.livecoding.billingservice.repository.ProductItemRepository;
+import jakarta.persistence.EntityManager;
+import feign.FeignException;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Slf4j
 public class BillingService {
 
     private final BillRepository billRepository;
     private final ProductItemRepository productItemRepository;
     private final CustomerRestClient customerRestClient;
     private final ProductRestClient productRestClient;
-    private final BillEventProducer billEventProducer;
+    private final BillEventOutbox billEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final BillGenerationEngine billGenerationEngine;
+    private final CatalogCache catalogCache;
+    private final RemoteLookupFanOut remoteLookups;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
     public BillingService(
@@ -33,23 +66,54 @@ public class BillingService {
             ProductItemRepository productItemRepository,
             CustomerRestClient customerRestClient,
             ProductRestClient productRestClient,
-            BillEventProducer billEventProducer
+            BillEventOutbox billEventOutbox,
+            TransactionTemplate transactionTemplate,
+            BillGenerationEngine billGenerationEngine,
+            CatalogCache catalogCache,
+            RemoteLookupFanOut remoteLookups
     ) {
         this.billRepository = billRepository;
         this.productItemRepository = productItemRepository;
         this.customerRestClient = customerRestClient;
         this.productRestClient = productRestClient;
-        this.billEventProducer = billEventProducer;
+        this.billEventOutbox = billEventOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.billGenerationEngine = billGenerationEngine;
+        this.catalogCache = catalogCache;
+        this.remoteLookups = remoteLookups;
     }
 
     public List<Bill> getAllBills() {
         return billRepository.findAll();
     }
 
+    /**
+     * Page de factures par curseur (keyset) : after = dernier id de la page précédente.
+     */
+    public BillPage getBillPage(Long after, Long customerId, Date from, Date to, int limit) {
+        List<Bill> items = billRepository.findPage(after == null ? 0L : after, customerId, from, to, Limit.of(limit));
+        Long nextCursor = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return new BillPage(items, nextCursor);
+    }
+
+    /**
+     * Parcourt toutes les factures filtrées sans jamais les garder en mémoire :
+     * chaque facture est détachée du contexte de persistance après avoir été transmise.
+     */
+    @Transactional(readOnly = true)
+    public void streamBills(Long customerId, Date from, Date to, Consumer<Bill> consumer) {
+        try (Stream<Bill> bills = billRepository.streamAll(customerId, from, to)) {
+            bills.forEach(bill -> {
+                consumer.accept(bill);
+                entityManager.detach(bill);
+            });
+        }
+    }
+
     public Bill getBillById(Long id) {
         Bill bill = billRepository.findById(id).orElse(null);
         if (bill != null) {
-            bill.setCustomer(customerRestClient.findCustomerById(bill.getCustomerId()));
+            bill.setCustomer(catalogCache.getCustomer(bill.getCustomerId()));
         }
         return bill;
     }
@@ -58,85 +122,206 @@ public class BillingService {
         Bill bill = billRepository.findById(billId).orElse(null);
         if (bill != null) {
             List<ProductItem> items = productItemRepository.findByBill(bill);
-            items.forEach(item -> {
-                item.setProduct(productRestClient.findProductById(item.getProductId()));
-            });
+            Map<Long, Product> products = catalogCache.getProducts(
+                    items.stream().map(ProductItem::getProductId).collect(Collectors.toSet()));
+            items.forEach(item -> item.setProduct(products.get(item.getProductId())));
             return items;
         }
         return Collections.emptyList();
     }
 
-    public String generateAllBills() {
-        List<Customer> customers = customerRestClient.getAllCustomers();
-        List<Product> products = productRestClient.getAllProducts();
+    /**
+     * Facture, client et lignes enrichies : une requête SQL, puis client et produits
+     * recherchés en parallèle (un seul appel groupé pour tous les produits manquants du cache).
+     */
+    public BillView getFullBill(Long id) {
+        List<BillLine> lines = billRepository.findFullBill(id);
+        if (lines.isEmpty()) {
+            return null;
+        }
+        BillLine first = lines.get(0);
+        Set<Long> productIds = lines.stream()
+                .map(BillLine::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        customers.forEach(customer -> {
-            Bill bill = Bill.builder()
-                    .billingDate(new Date())
-                    .customerId(customer.getId())
-                    .build();
-            billRepository.save(bill);
-
-            products.forEach(product -> {
-                ProductItem productItem = ProductItem.builder()
-                        .bill(bill)
-                        .productId(product.getId())
-                        .quantity(1 + (int)(Math.random() * 10))
-                        .unitPrice(product.getPrice())
-                        .build();
-                productItemRepository.save(productItem);
-            });
-        });
+        RemoteLookupFanOut.Batch lookups = remoteLookups.start();
+        Future<Customer> customerLookup = lookups.submit(() -> catalogCache.getCustomer(first.getCustomerId()));
+        Future<Map<Long, Product>> productLookup = lookups.submit(() -> catalogCache.getProducts(productIds));
+        lookups.await();
+        Map<Long, Product> products = resultOf(productLookup);
 
-        return "✅ " + billRepository.count() + " factures générées avec succès!";
+        List<BillView.Item> items = new ArrayList<>(lines.size());
+        double totalAmount = 0;
+        for (BillLine line : lines) {
+            if (line.getItemId() == null) {
+                continue;
+            }
+            items.add(new BillView.Item(line.getItemId(), line.getProductId(), line.getQuantity(),
+                    line.getUnitPrice(), products.get(line.getProductId())));
+            totalAmount += line.getQuantity() * line.getUnitPrice();
+        }
+        return new BillView(first.getBillId(), first.getBillingDate(), first.getCustomerId(),
+                resultOf(customerLookup), items, totalAmount);
+    }
+
+    /**
+     * Lance la generation massive en arriere-plan (voir {@link BillGenerationEngine}).
+     */
+    public GenerationReport generateAllBills() {
+        List<Product> products = productRestClient.getAllProducts();
+        return billGenerationEngine.start(customerRestClient::getCustomerPage, products);
+    }
+
+    public GenerationReport getGenerationStatus() {
+        return billGenerationEngine.status();
     }
 
     public Bill createBillForCustomer(Long customerId, List<ProductSelection> selections) {
-        Customer customer = customerRestClient.findCustomerById(customerId);
+        // Client et produits sont recherchés en même temps : la latence suit l'appel le plus lent
+        Set<Long> productIds = selections.stream()
+                .map(ProductSelection::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        RemoteLookupFanOut.Batch lookups = remoteLookups.start();
+        Future<Customer> customerLookup = lookups.submit(() -> catalogCache.getCustomer(customerId));
+        List<Future<Map<Long, Product>>> productLookups = new ArrayList<>();
+        for (List<Long> chunk : partition(productIds, remoteLookups.getProductChunkSize())) {
+            // Cache local, puis un appel groupé par lot pour les produits manquants
+            productLookups.add(lookups.submit(() -> catalogCache.getProducts(chunk)));
+        }
+        // Réservation du stock en parallèle des recherches (toutes les lignes ou aucune).
+        // Id généré ici : si le délai expire pendant l'appel, la réservation est annulée sans sa réponse
+        String reservationId = UUID.randomUUID().toString();
+        Future<StockReservation> stockReservation = null;
+        try {
+            stockReservation = lookups.submit(() -> productRestClient.reserveStock(reservationId, selections));
+            lookups.await();
+        } catch (RemoteLookupFanOut.RemoteLookupException e) {
+            releaseUnlessRejected(stockReservation, reservationId);
+            if (hasCause(e, FeignException.Conflict.class)) {
+                throw new OutOfStockException("Insufficient stock for customer " + customerId + " bill", e);
+            }
+            throw e;
+        }
+
+        Customer customer = resultOf(customerLookup);
         if (customer == null) {
+            releaseQuietly(reservationId);
             throw new RuntimeException("Customer not found with id: " + customerId);
         }
+        Map<Long, Product> products = new HashMap<>();
+        productLookups.forEach(lookup -> products.putAll(resultOf(lookup)));
 
-        Bill bill = Bill.builder()
-                .billingDate(new Date())
-                .customerId(customerId)
-                .build();
-        billRepository.save(bill);
+        // Facture, lignes, événement et confirmation du stock (outbox) dans UNE transaction :
+        // la requête n'attend ni Kafka ni inventory-service, OutboxRelay livre les deux jusqu'au succès
+        Bill bill;
+        try {
+            bill = createBillInTransaction(customerId, customer, selections, products, reservationId);
+        } catch (RuntimeException e) {
+            releaseQuietly(reservationId);
+            throw e;
+        }
 
-        int totalItems = 0;
-        double totalAmount = 0.0;
+        bill.setCustomer(customer);
+        return bill;
+    }
+
+    private Bill createBillInTransaction(Long customerId, Customer customer, List<ProductSelection> selections,
+                                         Map<Long, Product> products, String reservationId) {
+        return transactionTemplate.execute(status -> {
+            Bill newBill = Bill.builder()
+                    .billingDate(new Date())
+                    .customerId(customerId)
+                    .build();
+            billRepository.save(newBill);
 
-        for (ProductSelection selection : selections) {
-            Product product = productRestClient.findProductById(selection.getProductId());
-            if (product != null) {
-                int quantity = selection.getQuantity();
-                double itemTotal = quantity * product.getPrice();
+            BillTotals totals = BillTotals.compute(newBill, selections, products);
+            productItemRepository.saveAll(totals.getItems());
+
+            billEventOutbox.append(BillCreatedEvent.builder()
+                    .billId(newBill.getId())
+                    .customerId(customer.getId())
+                    .customerName(customer.getName())
+                    .customerEmail(customer.getEmail())
+                    .billingDate(newBill.getBillingDate())
+                    .totalItems(totals.getTotalItems())
+                    .totalAmount(totals.getTotalAmount())
+                    .build());
+            billEventOutbox.appendStockCommit(newBill.getId(), reservationId, selections);
+            return newBill;
+        });
+    }
+
+    /**
+     * Une autre recherche a échoué ou le délai a expiré : la réservation est annulée par son id, qu'elle
+     * soit faite, encore en cours (appel annulé, inventory-service peut l'enregistrer quand même : il
+     * refusera alors l'id annulé) ou perdue. Seul un refus explicite (409) n'a rien à rendre.
+     */
+    private void releaseUnlessRejected(Future<StockReservation> stockReservation, String reservationId) {
+        if (stockReservation == null) {
+            return;
+        }
+        if (stockReservation.isDone() && !stockReservation.isCancelled()) {
+            try {
+                stockReservation.get();
+            } catch (ExecutionException e) {
+                if (hasCause(e, FeignException.Conflict.class)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        releaseQuietly(reservationId);
+    }
 
-                ProductItem productItem = ProductItem.builder()
-                        .bill(bill)
-                        .productId(product.getId())
-                        .quantity(quantity)
-                        .unitPrice(product.getPrice())
-                        .build();
-                productItemRepository.save(productItem);
+    private void releaseQuietly(String reservationId) {
+        try {
+            productRestClient.releaseReservation(reservationId);
+        } catch (FeignException.NotFound e) {
+            // Réservation jamais enregistrée (ou déjà expirée) : son id est tout de même marqué annulé
+            log.debug("Réservation {} inconnue d'inventory-service, rien à annuler", reservationId);
+        } catch (RuntimeException e) {
+            log.warn("Annulation de la réservation {} impossible, elle expirera d'elle-même: {}",
+                    reservationId, e.getMessage());
+        }
+    }
 
-                totalItems += quantity;
-                totalAmount += itemTotal;
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return true;
             }
         }
+        return false;
+    }
 
-        BillCreatedEvent event = BillCreatedEvent.builder()
-                .billId(bill.getId())
-                .customerId(customer.getId())
-                .customerName(customer.getName())
-                .customerEmail(customer.getEmail())
-                .billingDate(bill.getBillingDate())
-                .totalItems(totalItems)
-                .totalAmount(totalAmount)
-                .build();
-        billEventProducer.sendBillCreatedEvent(event);
+    private static List<List<Long>> partition(Set<Long> ids, int size) {
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Long> current = new ArrayList<>(size);
+        for (Long id : ids) {
+            current.add(id);
+            if (current.size() == size) {
+                chunks.add(current);
+                current = new ArrayList<>(size);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
 
-        bill.setCustomer(customer);
-        return bill;
+    // Uniquement appelé après lookups.await() : le résultat est déjà disponible
+    private static <T> T resultOf(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
     }
 }
\ No newline at end of file
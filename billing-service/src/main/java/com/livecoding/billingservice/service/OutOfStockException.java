@@ -0,0 +1,10 @@
+package com.livecoding.billingservice.service;
+
+/**
+ * inventory-service a refusé la réservation (409) : au moins un produit n'a plus assez de stock.
+ */
+public class OutOfStockException extends RuntimeException {
+    public OutOfStockException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,158 @@
+package com.livecoding.billingservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ========================================
+ * FAN-OUT DES APPELS DISTANTS
+ * ========================================
+ *
+ * Lance en parallèle les appels distants d'une requête (client + produits) :
+ * la latence suit l'appel le plus lent au lieu de la somme de tous les appels.
+ *
+ * - Délai global par requête (billing.lookup.deadline)
+ * - Au premier échec (ou à l'expiration du délai) les appels restants sont annulés
+ * - Pool saturé (appel refusé) : RemoteLookupException, les appels déjà lancés du lot sont annulés
+ * - billing.lookup.concurrent=false : les appels sont exécutés un par un, dans le thread appelant
+ * - Profil virtual-threads : un virtual thread par appel, le pool (billing.lookup.pool-size) n'existe plus ;
+ *   la concurrence vers chaque service reste bornée par son bulkhead resilience4j
+ */
+@Component
+public class RemoteLookupFanOut {
+
+    private final boolean concurrent;
+    private final Duration deadline;
+    private final int productChunkSize;
+    private final Executor executor;
+
+    public RemoteLookupFanOut(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${billing.lookup.concurrent:true}") boolean concurrent,
+            @Value("${billing.lookup.pool-size:32}") int poolSize,
+            @Value("${billing.lookup.deadline:2s}") Duration deadline,
+            @Value("${billing.lookup.product-chunk-size:25}") int productChunkSize
+    ) {
+        this.concurrent = concurrent;
+        this.deadline = deadline;
+        this.productChunkSize = productChunkSize;
+        this.executor = virtualThreads ? new VirtualThreadTaskExecutor("remote-lookup-") : newPool(poolSize);
+    }
+
+    private static ThreadPoolTaskExecutor newPool(int poolSize) {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(poolSize);
+        pool.setMaxPoolSize(poolSize);
+        pool.setQueueCapacity(poolSize * 8);
+        pool.setThreadNamePrefix("remote-lookup-");
+        pool.initialize();
+        return pool;
+    }
+
+    /**
+     * Taille des lots d'ids produits envoyés en parallèle à inventory-service.
+     */
+    public int getProductChunkSize() {
+        return productChunkSize;
+    }
+
+    public Batch start() {
+        return new Batch();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Un lot d'appels appartenant à la même requête HTTP.
+     */
+    public class Batch {
+
+        private final long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        public <T> Future<T> submit(Callable<T> call) {
+            if (!concurrent) {
+                try {
+                    return CompletableFuture.completedFuture(call.call());
+                } catch (Exception e) {
+                    throw new RemoteLookupException("Remote lookup failed: " + e.getMessage(), e);
+                }
+            }
+            Future<T> future;
+            try {
+                future = (Future<T>) completion.submit((Callable<Object>) call);
+            } catch (RejectedExecutionException e) {
+                // Pool saturé (TaskRejectedException) : le lot échoue entier, les appels déjà lancés sont annulés
+                cancelAll();
+                throw new RemoteLookupException("Remote lookup rejected, lookup pool saturated", e);
+            }
+            futures.add(future);
+            return future;
+        }
+
+        /**
+         * Attend la fin de tous les appels du lot, dans la limite du délai de la requête.
+         *
+         * @throws RemoteLookupException si un appel échoue ou si le délai est dépassé
+         *                               (les appels encore en cours sont alors annulés)
+         */
+        public void await() {
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    Future<Object> done = completion.poll(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        throw new RemoteLookupException("Remote lookups exceeded deadline of " + deadline.toMillis() + " ms", null);
+                    }
+                    done.get();
+                }
+            } catch (ExecutionException e) {
+                cancelAll();
+                throw new RemoteLookupException("Remote lookup failed: " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new RemoteLookupException("Interrupted while waiting for remote lookups", e);
+            } catch (RemoteLookupException e) {
+                cancelAll();
+                throw e;
+            }
+        }
+
+        private void cancelAll() {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Echec ou dépassement de délai d'un appel distant.
+     */
+    public static class RemoteLookupException extends RuntimeException {
+        public RemoteLookupException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
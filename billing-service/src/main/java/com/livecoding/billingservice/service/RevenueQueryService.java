@@ -0,0 +1,102 @@
+package com.livecoding.billingservice.service;
+
+import com.livecoding.billingservice.dto.RevenueWindow;
+import com.livecoding.billingservice.kafkaprocessing.CustomerRevenue;
+import com.livecoding.billingservice.kafkaprocessing.KafkaStreamsConfig;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * ========================================
+ * INTERACTIVE QUERIES - CHIFFRE D'AFFAIRES
+ * ========================================
+ *
+ * Lit les state stores de KafkaStreamsConfig. Les trois stores sont partitionnés
+ * par customerId (même re-partitionnement) : un client est servi par une seule instance,
+ * les autres renvoient vers elle (voir {@link #remoteOwner(Long)}).
+ */
+@Service
+public class RevenueQueryService {
+
+    private final KafkaStreamsInteractiveQueryService queryService;
+    private final Duration tumblingWindow;
+    private final Duration hoppingWindow;
+
+    public RevenueQueryService(
+            KafkaStreamsInteractiveQueryService queryService,
+            @Value("${billing.revenue.tumbling-window:1h}") Duration tumblingWindow,
+            @Value("${billing.revenue.hopping-window:24h}") Duration hoppingWindow
+    ) {
+        this.queryService = queryService;
+        this.tumblingWindow = tumblingWindow;
+        this.hoppingWindow = hoppingWindow;
+    }
+
+    /**
+     * @return l'instance qui possède les données du client, ou null si c'est l'instance courante
+     */
+    public HostInfo remoteOwner(Long customerId) {
+        HostInfo owner = queryService.getKafkaStreamsApplicationServerHostInfo(
+                KafkaStreamsConfig.REVENUE_TOTAL_STORE, customerId, Serdes.Long().serializer());
+        HostInfo current = queryService.getCurrentKafkaStreamsApplicationHostInfo();
+        if (owner == null || owner.port() < 0 || owner.equals(current)) {
+            return null;
+        }
+        return owner;
+    }
+
+    public CustomerRevenue getTotal(Long customerId) {
+        ReadOnlyKeyValueStore<Long, CustomerRevenue> store = queryService.retrieveQueryableStore(
+                KafkaStreamsConfig.REVENUE_TOTAL_STORE, QueryableStoreTypes.keyValueStore());
+        return store.get(customerId);
+    }
+
+    /**
+     * Fenêtres du client dont le début est dans [from, to].
+     *
+     * @param granularity "tumbling" ou "hopping"
+     */
+    public List<RevenueWindow> getWindows(Long customerId, String granularity, Date from, Date to) {
+        String storeName;
+        Duration size;
+        switch (granularity) {
+            case "tumbling" -> {
+                storeName = KafkaStreamsConfig.REVENUE_TUMBLING_STORE;
+                size = tumblingWindow;
+            }
+            case "hopping" -> {
+                storeName = KafkaStreamsConfig.REVENUE_HOPPING_STORE;
+                size = hoppingWindow;
+            }
+            default -> throw new IllegalArgumentException("Unknown granularity: " + granularity);
+        }
+
+        ReadOnlyWindowStore<Long, CustomerRevenue> store =
+                queryService.retrieveQueryableStore(storeName, QueryableStoreTypes.windowStore());
+        List<RevenueWindow> windows = new ArrayList<>();
+        try (WindowStoreIterator<CustomerRevenue> iterator = store.fetch(customerId, from.toInstant(), to.toInstant())) {
+            while (iterator.hasNext()) {
+                KeyValue<Long, CustomerRevenue> window = iterator.next();
+                windows.add(new RevenueWindow(customerId,
+                        new Date(window.key),
+                        new Date(window.key + size.toMillis()),
+                        window.value.getBillCount(),
+                        window.value.getRevenue()));
+            }
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,79 @@
+package com.livecoding.billingservice.cache;
+
+import com.livecoding.billingservice.dto.Product;
+import com.livecoding.billingservice.feing.CustomerRestClient;
+import com.livecoding.billingservice.feing.HedgedRequests;
+import com.livecoding.billingservice.feing.ProductRestClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CatalogCacheTest {
+
+    private final ProductRestClient productRestClient = mock(ProductRestClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogCache cache = new CatalogCache(
+            productRestClient,
+            mock(CustomerRestClient.class),
+            new HedgedRequests(meterRegistry, false, false, Duration.ofMillis(20), 1),
+            meterRegistry,
+            100,
+            Duration.ofMinutes(10));
+
+    @Test
+    void loadAnsweredAfterAPriceChangeEventIsNotCached() {
+        // L'événement est appliqué pendant l'appel /bulk, la réponse porte encore l'ancien prix
+        when(productRestClient.findProductsByIds(anyCollection())).thenAnswer(invocation -> {
+            cache.putProduct(product(1L, 12.0));
+            return List.of(product(1L, 10.0));
+        }).thenReturn(List.of(product(1L, 12.0)));
+
+        Map<Long, Product> first = cache.getProducts(List.of(1L));
+        Map<Long, Product> second = cache.getProducts(List.of(1L));
+
+        // La requête en cours garde sa réponse, mais l'ancien prix n'est pas servi ensuite
+        assertEquals(10.0, first.get(1L).getPrice());
+        assertEquals(12.0, second.get(1L).getPrice());
+    }
+
+    @Test
+    void loadAnsweredAfterAnEvictionIsNotCached() {
+        when(productRestClient.findProductsByIds(anyCollection())).thenAnswer(invocation -> {
+            cache.evictProduct(1L);
+            return List.of(product(1L, 10.0));
+        }).thenReturn(List.of(product(1L, 12.0)));
+
+        cache.getProducts(List.of(1L));
+        Map<Long, Product> next = cache.getProducts(List.of(1L));
+
+        verify(productRestClient, times(2)).findProductsByIds(anyCollection());
+        assertEquals(12.0, next.get(1L).getPrice());
+    }
+
+    @Test
+    void loadWithoutConcurrentEventIsCachedAndOnlyMissingIdsAreFetched() {
+        cache.putProduct(product(1L, 5.0));
+        when(productRestClient.findProductsByIds(List.of(2L))).thenReturn(List.of(product(2L, 7.0)));
+
+        cache.getProducts(List.of(1L, 2L));
+        Map<Long, Product> cached = cache.getProducts(List.of(1L, 2L));
+
+        verify(productRestClient, times(1)).findProductsByIds(anyCollection());
+        assertEquals(5.0, cached.get(1L).getPrice());
+        assertEquals(7.0, cached.get(2L).getPrice());
+    }
+
+    private static Product product(Long id, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        return product;
+    }
+}
@@ -0,0 +1,70 @@
+package com.livecoding.billingservice.feing;
+
+import com.livecoding.loadbalancer.InstanceLatencyStats;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBalancerStatsLifecycleTest {
+
+    private final InstanceLatencyStats stats = new InstanceLatencyStats(new SimpleMeterRegistry(), new InstanceLatencyStats.Settings(
+            Duration.ofSeconds(10), Duration.ofMillis(20), 5, Duration.ofSeconds(30), Duration.ofMinutes(5), 50, 5));
+    private final LoadBalancerStatsLifecycle lifecycle = new LoadBalancerStatsLifecycle(stats);
+    private final ServiceInstance instance = new DefaultServiceInstance("inventory-service-1", "inventory-service",
+            "10.0.0.1", 8082, false);
+
+    @Test
+    void cancelledCallsAreNotCountedAsFailures() {
+        for (int i = 0; i < 10; i++) {
+            call(new RetryableException(-1, "Request aborted", null,
+                    new InterruptedIOException("Request aborted"), (Long) null, null));
+        }
+
+        assertFalse(stats.instance(instance).isEjected(System.nanoTime()));
+    }
+
+    @Test
+    void timeoutsAreFailuresEvenThoughTheyAreInterruptedIoExceptions() {
+        for (int i = 0; i < 5; i++) {
+            call(new RetryableException(-1, "Read timed out", null,
+                    new SocketTimeoutException("Read timed out"), (Long) null, null));
+        }
+
+        assertTrue(stats.instance(instance).isEjected(System.nanoTime()));
+    }
+
+    @Test
+    void interruptFlagOfTheCompletingThreadIsIgnored() {
+        try {
+            Thread.currentThread().interrupt();
+            for (int i = 0; i < 5; i++) {
+                call(new IllegalStateException("connection refused"));
+            }
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertTrue(stats.instance(instance).isEjected(System.nanoTime()));
+    }
+
+    private void call(Throwable error) {
+        Request<Object> request = new DefaultRequest<>(new RequestDataContext());
+        Response<ServiceInstance> lbResponse = new DefaultResponse(instance);
+        lifecycle.onStartRequest(request, lbResponse);
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED, error, request, lbResponse));
+    }
+}
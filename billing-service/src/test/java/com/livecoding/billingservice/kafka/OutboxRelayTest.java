@@ -0,0 +1,151 @@
+package com.livecoding.billingservice.kafka;
+
+import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.dto.StockCommit;
+import com.livecoding.billingservice.entites.OutboxEvent;
+import com.livecoding.billingservice.feing.ProductRestClient;
+import com.livecoding.billingservice.repository.OutboxEventRepository;
+import com.livecoding.events.BillCreatedEvent;
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final BillEventOutbox billEventOutbox = mock(BillEventOutbox.class);
+    private final BillEventProducer producer = mock(BillEventProducer.class);
+    private final ProductRestClient productRestClient = mock(ProductRestClient.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction.set(false);
+            }
+        });
+        doAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            } finally {
+                inTransaction.set(false);
+            }
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        relay = new OutboxRelay(repository, billEventOutbox, producer, productRestClient, transactionTemplate,
+                new SimpleMeterRegistry(), 10, 1_000);
+    }
+
+    @Test
+    void unreadableRowIsParkedAndTheRestIsPublished() {
+        OutboxEvent first = row(1L);
+        OutboxEvent poison = row(2L);
+        OutboxEvent third = row(3L);
+        when(repository.findBatch(any(), any(Limit.class))).thenReturn(List.of(first, poison, third));
+        when(billEventOutbox.read(first)).thenReturn(event(1L));
+        when(billEventOutbox.read(poison)).thenThrow(new IllegalArgumentException("Unexpected character"));
+        when(billEventOutbox.read(third)).thenReturn(event(3L));
+        doAnswer(invocation -> {
+            // Kafka n'est jamais attendu dans une transaction
+            assertFalse(inTransaction.get());
+            assertEquals(2, invocation.<List<?>>getArgument(0).size());
+            return List.of(CompletableFuture.completedFuture(null), CompletableFuture.completedFuture(null));
+        }).when(producer).sendBatch(anyList());
+
+        relay.relay();
+
+        assertTrue(poison.isParked());
+        assertEquals(1, poison.getAttempts());
+        assertEquals("Unexpected character", poison.getLastError());
+        assertNotNull(first.getClaimedUntil());
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 3L));
+        verify(repository, never()).releaseClaims(any());
+    }
+
+    @Test
+    void failedSendIsReleasedForTheNextRun() {
+        OutboxEvent ok = row(1L);
+        OutboxEvent failing = row(2L);
+        when(repository.findBatch(any(), any(Limit.class))).thenReturn(List.of(ok, failing));
+        when(billEventOutbox.read(ok)).thenReturn(event(1L));
+        when(billEventOutbox.read(failing)).thenReturn(event(2L));
+        doReturn(List.of(CompletableFuture.completedFuture(null),
+                CompletableFuture.failedFuture(new IllegalStateException("broker down"))))
+                .when(producer).sendBatch(anyList());
+
+        relay.relay();
+
+        verify(repository).deleteAllByIdInBatch(List.of(1L));
+        verify(repository).releaseClaims(List.of(2L));
+        // Lot incomplet : pas de relance immédiate dans le même passage
+        verify(repository, times(1)).findBatch(any(), any(Limit.class));
+    }
+
+    @Test
+    void stockCommitIsDeliveredToInventoryAndRejectedOneIsParked() {
+        OutboxEvent delivered = stockCommitRow(1L);
+        OutboxEvent refused = stockCommitRow(2L);
+        OutboxEvent unreachable = stockCommitRow(3L);
+        when(repository.findBatch(any(), any(Limit.class))).thenReturn(List.of(delivered, refused, unreachable));
+        List<ProductSelection> lines = List.of(new ProductSelection());
+        when(billEventOutbox.readStockCommit(delivered)).thenReturn(new StockCommit("r-1", lines));
+        when(billEventOutbox.readStockCommit(refused)).thenReturn(new StockCommit("r-2", lines));
+        when(billEventOutbox.readStockCommit(unreachable)).thenReturn(new StockCommit("r-3", lines));
+        Request request = Request.create(Request.HttpMethod.POST, "/api/products/stock/reservations/r-2/commit",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        doThrow(new FeignException.BadRequest("bad lines", request, null, null))
+                .when(productRestClient).commitReservation(eq("r-2"), anyList());
+        doThrow(new IllegalStateException("inventory-service down"))
+                .when(productRestClient).commitReservation(eq("r-3"), anyList());
+
+        relay.relay();
+
+        verify(productRestClient).commitReservation("r-1", lines);
+        verify(producer, never()).sendBatch(anyList());
+        verify(repository).deleteAllByIdInBatch(List.of(1L));
+        verify(repository).park(eq(2L), anyString());
+        verify(repository).releaseClaims(List.of(3L));
+    }
+
+    private static OutboxEvent row(Long id) {
+        return OutboxEvent.builder().id(id).type(OutboxEvent.Type.BILL_CREATED).billId(100 + id).payload("{}").build();
+    }
+
+    private static OutboxEvent stockCommitRow(Long id) {
+        return OutboxEvent.builder().id(id).type(OutboxEvent.Type.STOCK_COMMIT).billId(100 + id).payload("{}").build();
+    }
+
+    private static BillCreatedEvent event(Long billId) {
+        return BillCreatedEvent.builder().billId(100 + billId).build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.livecoding.billingservice.kafkaprocessing;
+
+import com.livecoding.billingservice.dto.RevenueWindow;
+import com.livecoding.billingservice.service.RevenueQueryService;
+import com.livecoding.events.BillCreatedEvent;
+import com.livecoding.events.serde.BillCreatedEventSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class KafkaStreamsConfigTest {
+
+    private static final Instant TEN = Instant.parse("2026-01-05T10:00:00Z");
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, BillCreatedEvent> bills;
+
+    @BeforeEach
+    void setUp() {
+        // Fenêtres fixes d'1h, glissantes de 2h avancées d'1h, 5 min de retard toléré
+        KafkaStreamsConfig config = new KafkaStreamsConfig();
+        ReflectionTestUtils.setField(config, "tumblingWindow", HOUR);
+        ReflectionTestUtils.setField(config, "hoppingWindow", Duration.ofHours(2));
+        ReflectionTestUtils.setField(config, "hoppingAdvance", HOUR);
+        ReflectionTestUtils.setField(config, "grace", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(config, "retention", Duration.ofDays(7));
+        StreamsBuilder builder = new StreamsBuilder();
+        config.kStream(builder);
+
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, "billing-revenue-test");
+        properties.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        properties.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(builder.build(), properties);
+        bills = driver.createInputTopic("bill-created-topic", new StringSerializer(), new BillCreatedEventSerializer());
+
+        // Client 1 : deux factures dans la fenêtre de 10h (dont la dernière milliseconde), une à 11h pile
+        send(1L, 1L, TEN, 100);
+        send(2L, 1L, TEN.plus(HOUR).minusMillis(1), 50);
+        send(3L, 2L, TEN.plusSeconds(30 * 60), 700);
+        send(4L, 1L, TEN.plus(HOUR), 25);
+        // Sans client : ignorée par les agrégats
+        send(5L, null, TEN.plus(HOUR), 1_000);
+        // 2h de retard sur le temps du flux (11h) : au-delà du délai de grâce de la fenêtre [9h, 10h[
+        send(6L, 1L, TEN.minus(HOUR), 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void totalStoreAggregatesEveryBillPerCustomer() {
+        KeyValueStore<Long, CustomerRevenue> total = driver.getKeyValueStore(KafkaStreamsConfig.REVENUE_TOTAL_STORE);
+
+        // Le total n'est pas fenêtré : la facture en retard compte
+        assertEquals(new CustomerRevenue(4, 185.0), total.get(1L));
+        assertEquals(new CustomerRevenue(1, 700.0), total.get(2L));
+        assertNull(total.get(3L));
+    }
+
+    @Test
+    void tumblingWindowsSplitAtTheHourAndDropBillsPastTheGracePeriod() {
+        Map<Long, CustomerRevenue> windows = fetch(KafkaStreamsConfig.REVENUE_TUMBLING_STORE, 1L);
+
+        assertEquals(Map.of(
+                TEN.toEpochMilli(), new CustomerRevenue(2, 150.0),
+                TEN.plus(HOUR).toEpochMilli(), new CustomerRevenue(1, 25.0)), windows);
+    }
+
+    @Test
+    void hoppingWindowsOverlapAndStillAcceptALateBillWithinTheirGrace() {
+        Map<Long, CustomerRevenue> windows = fetch(KafkaStreamsConfig.REVENUE_HOPPING_STORE, 1L);
+
+        // [8h, 10h[ fermée à 10h05 : facture de 9h rejetée ; [9h, 11h[ fermée à 11h05 : acceptée
+        assertEquals(Map.of(
+                TEN.minus(HOUR).toEpochMilli(), new CustomerRevenue(3, 160.0),
+                TEN.toEpochMilli(), new CustomerRevenue(3, 175.0),
+                TEN.plus(HOUR).toEpochMilli(), new CustomerRevenue(1, 25.0)), windows);
+    }
+
+    @Test
+    void revenueQueryServiceReadsTheWindowStoresWithTheirBoundaries() {
+        KafkaStreamsInteractiveQueryService queryService = mock(KafkaStreamsInteractiveQueryService.class);
+        WindowStore<Long, CustomerRevenue> tumbling = driver.getWindowStore(KafkaStreamsConfig.REVENUE_TUMBLING_STORE);
+        doReturn(tumbling).when(queryService).retrieveQueryableStore(eq(KafkaStreamsConfig.REVENUE_TUMBLING_STORE), any());
+        RevenueQueryService revenueQueryService = new RevenueQueryService(queryService, HOUR, Duration.ofHours(2));
+
+        List<RevenueWindow> windows = revenueQueryService.getWindows(2L, "tumbling",
+                Date.from(TEN.minus(HOUR)), Date.from(TEN.plus(HOUR)));
+
+        assertEquals(1, windows.size());
+        RevenueWindow window = windows.get(0);
+        assertEquals(2L, window.getCustomerId());
+        assertEquals(Date.from(TEN), window.getWindowStart());
+        assertEquals(Date.from(TEN.plus(HOUR)), window.getWindowEnd());
+        assertEquals(1, window.getBillCount());
+        assertEquals(700.0, window.getRevenue());
+    }
+
+    private Map<Long, CustomerRevenue> fetch(String storeName, Long customerId) {
+        WindowStore<Long, CustomerRevenue> store = driver.getWindowStore(storeName);
+        Map<Long, CustomerRevenue> windows = new LinkedHashMap<>();
+        try (WindowStoreIterator<CustomerRevenue> iterator =
+                     store.fetch(customerId, TEN.minus(Duration.ofDays(1)), TEN.plus(Duration.ofDays(1)))) {
+            while (iterator.hasNext()) {
+                KeyValue<Long, CustomerRevenue> window = iterator.next();
+                windows.put(window.key, window.value);
+            }
+        }
+        return windows;
+    }
+
+    private void send(Long billId, Long customerId, Instant billingDate, double totalAmount) {
+        bills.pipeInput(String.valueOf(billId), BillCreatedEvent.builder()
+                .billId(billId)
+                .customerId(customerId)
+                .billingDate(Date.from(billingDate))
+                .totalItems(1)
+                .totalAmount(totalAmount)
+                .build(), billingDate);
+    }
+}
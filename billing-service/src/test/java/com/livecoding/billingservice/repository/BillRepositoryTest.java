@@ -0,0 +1,117 @@
+package com.livecoding.billingservice.repository;
+
+import com.livecoding.billingservice.BillingServiceApplication;
+import com.livecoding.billingservice.dto.BillLine;
+import com.livecoding.billingservice.entites.Bill;
+import com.livecoding.billingservice.entites.ProductItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GET /bills/{id}/full : la facture et ses lignes doivent être lues en un nombre fixe de requêtes SQL,
+ * quel que soit le nombre de lignes.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BillRepositoryTest {
+
+    // JPA uniquement : ni Kafka Streams ni Feign (déclarés sur BillingServiceApplication)
+    @SpringBootConfiguration
+    @AutoConfigurationPackage(basePackageClasses = BillingServiceApplication.class)
+    static class JpaOnly {
+    }
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private ProductItemRepository productItemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void findFullBill_usesOneStatementWhateverTheNumberOfItems() {
+        Long small = saveBill(1L, 2);
+        Long large = saveBill(2L, 40);
+
+        List<BillLine> smallLines = countedQuery(small, 1);
+        List<BillLine> largeLines = countedQuery(large, 1);
+
+        assertEquals(2, smallLines.size());
+        assertEquals(40, largeLines.size());
+        assertTrue(largeLines.stream().allMatch(line -> line.getBillId().equals(large)));
+        assertEquals(2L, largeLines.get(0).getCustomerId());
+    }
+
+    @Test
+    void findFullBill_returnsBillWithoutItems() {
+        Long empty = saveBill(3L, 0);
+
+        List<BillLine> lines = countedQuery(empty, 1);
+
+        assertEquals(1, lines.size());
+        assertNull(lines.get(0).getItemId());
+        assertEquals(3L, lines.get(0).getCustomerId());
+    }
+
+    @Test
+    void findFullBill_returnsNothingForUnknownBill() {
+        assertTrue(countedQuery(999_999L, 1).isEmpty());
+    }
+
+    @Test
+    void findByBill_doesNotReloadTheBillOfEachItem() {
+        Long billId = saveBill(4L, 10);
+        Bill bill = billRepository.getReferenceById(billId);
+
+        statistics.clear();
+        List<ProductItem> items = productItemRepository.findByBill(bill);
+
+        assertEquals(10, items.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private List<BillLine> countedQuery(Long billId, long expectedStatements) {
+        statistics.clear();
+        List<BillLine> lines = billRepository.findFullBill(billId);
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount());
+        return lines;
+    }
+
+    private Long saveBill(Long customerId, int itemCount) {
+        Bill bill = billRepository.save(Bill.builder().billingDate(new Date()).customerId(customerId).build());
+        List<ProductItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(ProductItem.builder()
+                    .bill(bill)
+                    .productId((long) i + 1)
+                    .quantity(i % 5 + 1)
+                    .unitPrice(10.0 + i)
+                    .build());
+        }
+        productItemRepository.saveAll(items);
+        entityManager.flush();
+        entityManager.clear();
+        return bill.getId();
+    }
+}
@@ -1,21 +1,41 @@
 package com.livecoding.billingservice.service;
 
+import com.livecoding.billingservice.cache.CatalogCache;
+import com.livecoding.billingservice.dto.BillPage;
+import com.livecoding.billingservice.dto.Customer;
+import com.livecoding.billingservice.dto.Product;
+import com.livecoding.billingservice.dto.ProductSelection;
+import com.livecoding.billingservice.dto.StockReservation;
 import com.livecoding.billingservice.entites.Bill;
 import com.livecoding.billingservice.entites.ProductItem;
 import com.livecoding.billingservice.feing.CustomerRestClient;
 import com.livecoding.billingservice.feing.ProductRestClient;
+import com.livecoding.billingservice.kafka.BillEventOutbox;
 import com.livecoding.billingservice.repository.BillRepository;
 import com.livecoding.billingservice.repository.ProductItemRepository;
+import feign.FeignException;
+import feign.Request;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +58,18 @@ class BillingServiceTest {
     @Mock
     private ProductRestClient productRestClient;
 
+    @Mock
+    private BillEventOutbox billEventOutbox;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CatalogCache catalogCache;
+
+    @Spy
+    private RemoteLookupFanOut remoteLookups = new RemoteLookupFanOut(false, true, 4, Duration.ofSeconds(2), 25);
+
     @Test
     void testGetAllBills() {
         // Arrange
@@ -58,6 +90,36 @@ class BillingServiceTest {
         verify(billRepository).findAll();
     }
 
+    @Test
+    void testGetBillPage_NextCursorIsLastIdOfFullPage() {
+        // Arrange
+        List<Bill> page = Arrays.asList(
+                Bill.builder().id(11L).customerId(1L).build(),
+                Bill.builder().id(12L).customerId(1L).build());
+        when(billRepository.findPage(eq(10L), eq(1L), isNull(), isNull(), any(Limit.class))).thenReturn(page);
+
+        // Act
+        BillPage result = billingService.getBillPage(10L, 1L, null, null, 2);
+
+        // Assert
+        assertEquals(2, result.getItems().size());
+        assertEquals(12L, result.getNextCursor());
+    }
+
+    @Test
+    void testGetBillPage_LastPageHasNoCursor() {
+        // Arrange
+        when(billRepository.findPage(eq(0L), isNull(), isNull(), isNull(), any(Limit.class)))
+                .thenReturn(Arrays.asList(Bill.builder().id(1L).build()));
+
+        // Act
+        BillPage result = billingService.getBillPage(null, null, null, null, 100);
+
+        // Assert
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+    }
+
     @Test
     void testGetBillById() {
         // Arrange
@@ -119,5 +181,144 @@ class BillingServiceTest {
         assertEquals(1, result.size());
         verify(billRepository).findById(1L);
         verify(productItemRepository).findByBill(bill);
+        verify(catalogCache).getProducts(anyCollection());
+        verify(productRestClient, never()).findProductById(anyLong());
+    }
+
+    @Test
+    void testCreateBillForCustomer_ProductLookupsFannedOutInChunks() {
+        // Arrange
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setName("John Doe");
+
+        List<ProductSelection> selections = new ArrayList<>();
+        Map<Long, Product> products = new HashMap<>();
+        for (long id = 1; id <= 40; id++) {
+            ProductSelection selection = new ProductSelection();
+            selection.setProductId(id);
+            selection.setQuantity(2);
+            selections.add(selection);
+
+            Product product = new Product();
+            product.setId(id);
+            product.setPrice(10.0);
+            products.put(id, product);
+        }
+
+        when(catalogCache.getCustomer(1L)).thenReturn(customer);
+        when(catalogCache.getProducts(anyCollection())).thenReturn(products);
+        ArgumentCaptor<String> reservationId = ArgumentCaptor.forClass(String.class);
+        when(productRestClient.reserveStock(reservationId.capture(), eq(selections)))
+                .thenAnswer(invocation -> new StockReservation(invocation.getArgument(0), 0L));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        // Act
+        Bill result = billingService.createBillForCustomer(1L, selections);
+
+        // Assert
+        assertNotNull(result);
+        // 40 produits, lots de 25 : 2 appels groupés en parallèle (et non 40 appels séquentiels)
+        verify(catalogCache, times(2)).getProducts(anyCollection());
+        verify(productRestClient, never()).findProductById(anyLong());
+        verify(productItemRepository).saveAll(argThat((List<ProductItem> items) -> items.size() == 40));
+        // L'événement part dans l'outbox (même transaction), jamais directement vers Kafka
+        verify(billEventOutbox).append(argThat(event ->
+                event.getTotalItems() == 80 && event.getTotalAmount() == 800.0));
+        // Stock réservé pendant les recherches, confirmation écrite dans l'outbox avec la facture
+        verify(billEventOutbox).appendStockCommit(any(), eq(reservationId.getValue()), eq(selections));
+        verify(productRestClient, never()).commitReservation(anyString(), anyList());
+        verify(productRestClient, never()).releaseReservation(anyString());
+    }
+
+    @Test
+    void testCreateBillForCustomer_FailedTransactionReleasesStock() {
+        // Arrange
+        ProductSelection selection = new ProductSelection();
+        selection.setProductId(1L);
+        selection.setQuantity(3);
+        Product product = new Product();
+        product.setId(1L);
+        product.setPrice(5.0);
+
+        when(catalogCache.getCustomer(1L)).thenReturn(new Customer());
+        when(catalogCache.getProducts(anyCollection())).thenReturn(Map.of(1L, product));
+        ArgumentCaptor<String> reservationId = ArgumentCaptor.forClass(String.class);
+        when(productRestClient.reserveStock(reservationId.capture(), anyList()))
+                .thenAnswer(invocation -> new StockReservation(invocation.getArgument(0), 0L));
+        when(transactionTemplate.execute(any())).thenThrow(new RuntimeException("database down"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> billingService.createBillForCustomer(1L, List.of(selection)));
+        verify(productRestClient).releaseReservation(reservationId.getValue());
+        verify(billEventOutbox, never()).appendStockCommit(any(), anyString(), anyList());
+    }
+
+    @Test
+    void testCreateBillForCustomer_FailedLookupAbortsBill() {
+        // Arrange
+        ProductSelection selection = new ProductSelection();
+        selection.setProductId(1L);
+        selection.setQuantity(1);
+
+        lenient().when(catalogCache.getCustomer(1L)).thenReturn(new Customer());
+        when(catalogCache.getProducts(anyCollection())).thenThrow(new RuntimeException("inventory-service down"));
+
+        // Act & Assert
+        assertThrows(RemoteLookupFanOut.RemoteLookupException.class,
+                () -> billingService.createBillForCustomer(1L, List.of(selection)));
+        verify(billRepository, never()).save(any(Bill.class));
+        verify(billEventOutbox, never()).append(any());
+    }
+
+    @Test
+    void testCreateBillForCustomer_DeadlineReleasesReservationStillInFlight() {
+        // Arrange : délai de 100 ms, la réservation ne répond pas à temps
+        RemoteLookupFanOut shortDeadline = new RemoteLookupFanOut(false, true, 4, Duration.ofMillis(100), 25);
+        doReturn(shortDeadline.start()).when(remoteLookups).start();
+        ProductSelection selection = new ProductSelection();
+        selection.setProductId(1L);
+        selection.setQuantity(1);
+        CountDownLatch inventoryAnswers = new CountDownLatch(1);
+
+        lenient().when(catalogCache.getCustomer(1L)).thenReturn(new Customer());
+        lenient().when(catalogCache.getProducts(anyCollection())).thenReturn(Map.of());
+        ArgumentCaptor<String> reservationId = ArgumentCaptor.forClass(String.class);
+        when(productRestClient.reserveStock(reservationId.capture(), anyList())).thenAnswer(invocation -> {
+            inventoryAnswers.await();
+            return new StockReservation(invocation.getArgument(0), 0L);
+        });
+
+        // Act & Assert
+        try {
+            assertThrows(RemoteLookupFanOut.RemoteLookupException.class,
+                    () -> billingService.createBillForCustomer(1L, List.of(selection)));
+            // Réponse jamais lue : annulée par l'id envoyé (inventory-service refusera une réservation tardive)
+            verify(productRestClient).releaseReservation(reservationId.getValue());
+            verify(billRepository, never()).save(any(Bill.class));
+        } finally {
+            inventoryAnswers.countDown();
+            shortDeadline.shutdown();
+        }
+    }
+
+    @Test
+    void testCreateBillForCustomer_RejectedReservationIsNotReleased() {
+        // Arrange
+        ProductSelection selection = new ProductSelection();
+        selection.setProductId(1L);
+        selection.setQuantity(100);
+        Request request = Request.create(Request.HttpMethod.POST, "/api/products/stock/reservations",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+
+        lenient().when(catalogCache.getCustomer(1L)).thenReturn(new Customer());
+        lenient().when(catalogCache.getProducts(anyCollection())).thenReturn(Map.of());
+        when(productRestClient.reserveStock(anyString(), anyList()))
+                .thenThrow(new FeignException.Conflict("insufficient stock", request, null, null));
+
+        // Act & Assert
+        assertThrows(OutOfStockException.class, () -> billingService.createBillForCustomer(1L, List.of(selection)));
+        verify(productRestClient, never()).releaseReservation(anyString());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.livecoding.billingservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteLookupFanOutTest {
+
+    // Pool d'un thread, file de 8 appels
+    private final RemoteLookupFanOut fanOut = new RemoteLookupFanOut(false, true, 1, Duration.ofSeconds(2), 25);
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        blocked.countDown();
+        fanOut.shutdown();
+    }
+
+    @Test
+    void saturatedPoolFailsTheBatchAndCancelsSubmittedCalls() {
+        RemoteLookupFanOut.Batch batch = fanOut.start();
+        List<Future<Object>> submitted = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            submitted.add(batch.submit(() -> {
+                blocked.await();
+                return null;
+            }));
+        }
+
+        RemoteLookupFanOut.RemoteLookupException error = assertThrows(RemoteLookupFanOut.RemoteLookupException.class,
+                () -> batch.submit(() -> null));
+
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertTrue(submitted.stream().allMatch(Future::isCancelled));
+    }
+}
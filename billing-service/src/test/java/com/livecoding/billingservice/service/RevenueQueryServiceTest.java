@@ -0,0 +1,61 @@
+package com.livecoding.billingservice.service;
+
+import com.livecoding.billingservice.kafkaprocessing.KafkaStreamsConfig;
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RevenueQueryServiceTest {
+
+    private static final HostInfo CURRENT = new HostInfo("billing-1", 8083);
+
+    private final KafkaStreamsInteractiveQueryService queryService = mock(KafkaStreamsInteractiveQueryService.class);
+    private final RevenueQueryService revenueQueryService =
+            new RevenueQueryService(queryService, Duration.ofHours(1), Duration.ofHours(24));
+
+    @Test
+    void customerOwnedByAnotherInstanceIsRedirectedToIt() {
+        HostInfo other = new HostInfo("billing-2", 8083);
+        ownerOf(42L, other);
+
+        assertEquals(other, revenueQueryService.remoteOwner(42L));
+    }
+
+    @Test
+    void customerOwnedByTheCurrentInstanceIsServedLocally() {
+        ownerOf(42L, new HostInfo("billing-1", 8083));
+
+        assertNull(revenueQueryService.remoteOwner(42L));
+    }
+
+    @Test
+    void unknownOwnerIsServedLocally() {
+        // Sans application.server (ou pendant un rééquilibrage) : pas de redirection
+        ownerOf(42L, new HostInfo("unavailable", -1));
+        assertNull(revenueQueryService.remoteOwner(42L));
+
+        ownerOf(42L, null);
+        assertNull(revenueQueryService.remoteOwner(42L));
+    }
+
+    @Test
+    void unknownGranularityIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> revenueQueryService.getWindows(42L, "daily", new Date(0), new Date()));
+        verify(queryService, never()).retrieveQueryableStore(any(), any());
+    }
+
+    private void ownerOf(Long customerId, HostInfo owner) {
+        when(queryService.getKafkaStreamsApplicationServerHostInfo(eq(KafkaStreamsConfig.REVENUE_TOTAL_STORE),
+                eq(customerId), any())).thenReturn(owner);
+        when(queryService.getCurrentKafkaStreamsApplicationHostInfo()).thenReturn(CURRENT);
+    }
+}
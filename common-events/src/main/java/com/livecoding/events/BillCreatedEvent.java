@@ -97,5 +97,8 @@ public class BillCreatedEvent implements Serializable {
      * 
      * Le consommateur fait l'inverse:
      * Bytes → JSON → BillCreatedEvent
+     * 
+     * Depuis le format binaire versionné (package serde), billing-service publie
+     * cet événement via BillCreatedEventSerializer : ~30 octets au lieu de ~200.
      */
 }
@@ -0,0 +1,37 @@
+package com.livecoding.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * ========================================
+ * CUSTOMER CHANGED EVENT - ÉVÉNEMENT KAFKA
+ * ========================================
+ *
+ * Publié par customer-service après le commit de chaque création / modification /
+ * suppression d'un client (topic "customer-changed-topic", clé = customerId).
+ *
+ * Les services qui gardent un cache local des clients (ex: billing-service)
+ * s'en servent pour rester à jour sans rappeler customer-service.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerChangedEvent implements Serializable {
+
+    private Long customerId;
+
+    private String name;
+
+    private String email;
+
+    /**
+     * true si le client a été supprimé : les consommateurs doivent l'évincer de leur cache
+     */
+    private boolean deleted;
+}
@@ -0,0 +1,39 @@
+package com.livecoding.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * ========================================
+ * PRODUCT CHANGED EVENT - ÉVÉNEMENT KAFKA
+ * ========================================
+ *
+ * Publié par inventory-service après le commit de chaque création / modification /
+ * suppression d'un produit (topic "product-changed-topic", clé = productId).
+ *
+ * Les services qui gardent un cache local des produits (ex: billing-service)
+ * s'en servent pour rester à jour sans rappeler inventory-service.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductChangedEvent implements Serializable {
+
+    private Long productId;
+
+    private String name;
+
+    private double price;
+
+    private int quantity;
+
+    /**
+     * true si le produit a été supprimé : les consommateurs doivent l'évincer de leur cache
+     */
+    private boolean deleted;
+}
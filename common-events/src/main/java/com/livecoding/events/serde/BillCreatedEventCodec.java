@@ -0,0 +1,165 @@
+package com.livecoding.events.serde;
+
+import com.livecoding.events.BillCreatedEvent;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * ========================================
+ * FORMAT BINAIRE COMPACT - BillCreatedEvent
+ * ========================================
+ *
+ * Remplace le JSON (noms de champs répétés, date en texte, header __TypeId__
+ * avec le nom complet de la classe) par un encodage binaire :
+ *
+ *   [magic 0xB1][version][flags][billId][customerId][customerName][customerEmail]
+ *   [billingDate][totalItems][totalAmount]
+ *
+ * - entiers en varint zigzag (1 à 10 octets), dates en epoch millis
+ * - chaînes : longueur varint + UTF-8
+ * - flags : un bit par champ nullable (absent = non écrit)
+ *
+ * VERSIONNEMENT (rolling deploys):
+ * - une nouvelle version n'AJOUTE des champs qu'à la fin (et de nouveaux bits de flags)
+ * - un lecteur lit les champs qu'il connaît et ignore les octets suivants :
+ *   ancien consommateur + nouveau producteur => OK
+ * - nouveau lecteur + ancien message => les champs absents gardent leur valeur par défaut
+ * - le premier octet (0xB1) ne peut pas commencer un document JSON ('{') :
+ *   un désérialiseur peut donc accepter les deux formats pendant la migration
+ */
+public final class BillCreatedEventCodec {
+
+    public static final byte MAGIC = (byte) 0xB1;
+    public static final int CURRENT_VERSION = 1;
+
+    private static final int HAS_BILL_ID = 1;
+    private static final int HAS_CUSTOMER_ID = 1 << 1;
+    private static final int HAS_CUSTOMER_NAME = 1 << 2;
+    private static final int HAS_CUSTOMER_EMAIL = 1 << 3;
+    private static final int HAS_BILLING_DATE = 1 << 4;
+
+    private BillCreatedEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 2 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(BillCreatedEvent event) {
+        byte[] name = utf8(event.getCustomerName());
+        byte[] email = utf8(event.getCustomerEmail());
+
+        int flags = (event.getBillId() != null ? HAS_BILL_ID : 0)
+                | (event.getCustomerId() != null ? HAS_CUSTOMER_ID : 0)
+                | (name != null ? HAS_CUSTOMER_NAME : 0)
+                | (email != null ? HAS_CUSTOMER_EMAIL : 0)
+                | (event.getBillingDate() != null ? HAS_BILLING_DATE : 0);
+
+        // Taille maximale possible : 3 octets d'en-tête, 4 varlongs, 2 chaînes, 1 double
+        int maxSize = 3 + 4 * 10 + (name == null ? 0 : 5 + name.length) + (email == null ? 0 : 5 + email.length) + 8;
+        ByteBuffer buffer = ByteBuffer.allocate(maxSize);
+        buffer.put(MAGIC).put((byte) CURRENT_VERSION).put((byte) flags);
+
+        if (event.getBillId() != null) {
+            writeVarLong(buffer, event.getBillId());
+        }
+        if (event.getCustomerId() != null) {
+            writeVarLong(buffer, event.getCustomerId());
+        }
+        if (name != null) {
+            writeBytes(buffer, name);
+        }
+        if (email != null) {
+            writeBytes(buffer, email);
+        }
+        if (event.getBillingDate() != null) {
+            writeVarLong(buffer, event.getBillingDate().getTime());
+        }
+        writeVarLong(buffer, event.getTotalItems());
+        buffer.putDouble(event.getTotalAmount());
+
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    public static BillCreatedEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Not a binary BillCreatedEvent (missing magic byte)");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.get();
+        int version = buffer.get() & 0xFF;
+        if (version < 1) {
+            throw new IllegalArgumentException("Unsupported BillCreatedEvent schema version " + version);
+        }
+
+        try {
+            int flags = buffer.get() & 0xFF;
+            BillCreatedEvent event = new BillCreatedEvent();
+            if ((flags & HAS_BILL_ID) != 0) {
+                event.setBillId(readVarLong(buffer));
+            }
+            if ((flags & HAS_CUSTOMER_ID) != 0) {
+                event.setCustomerId(readVarLong(buffer));
+            }
+            if ((flags & HAS_CUSTOMER_NAME) != 0) {
+                event.setCustomerName(readString(buffer));
+            }
+            if ((flags & HAS_CUSTOMER_EMAIL) != 0) {
+                event.setCustomerEmail(readString(buffer));
+            }
+            if ((flags & HAS_BILLING_DATE) != 0) {
+                event.setBillingDate(new Date(readVarLong(buffer)));
+            }
+            event.setTotalItems((int) readVarLong(buffer));
+            event.setTotalAmount(buffer.getDouble());
+            // Versions > CURRENT_VERSION : champs ajoutés à la fin, ignorés ici
+            return event;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated BillCreatedEvent (schema version " + version + ")", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(ByteBuffer buffer, byte[] bytes) {
+        writeVarLong(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = (int) readVarLong(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in BillCreatedEvent");
+    }
+}
@@ -0,0 +1,97 @@
+package com.livecoding.events.serde;
+
+import com.livecoding.events.BillCreatedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Map;
+
+/**
+ * Deserializer Kafka binaire pour BillCreatedEvent (voir {@link BillCreatedEventCodec}).
+ *
+ * MIGRATION DEPUIS LE JSON:
+ * Les messages déjà présents dans le topic (ou produits par une instance pas encore
+ * redéployée) sont en JSON. Si un deserializer de repli est configuré, tout message
+ * qui ne commence pas par l'octet magique binaire lui est délégué :
+ *
+ *   bill.event.fallback.deserializer=org.springframework.kafka.support.serializer.JsonDeserializer
+ *
+ * Le deserializer de repli reçoit la même configuration (spring.json.* etc.).
+ */
+public class BillCreatedEventDeserializer implements Deserializer<BillCreatedEvent> {
+
+    public static final String FALLBACK_DESERIALIZER_CONFIG = "bill.event.fallback.deserializer";
+
+    private Deserializer<?> fallback;
+
+    public BillCreatedEventDeserializer() {
+    }
+
+    public BillCreatedEventDeserializer(Deserializer<?> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object configured = configs.get(FALLBACK_DESERIALIZER_CONFIG);
+        if (fallback == null && configured != null) {
+            try {
+                fallback = configured instanceof Class<?> clazz
+                        ? (Deserializer<?>) Utils.newInstance(clazz)
+                        : Utils.newInstance(configured.toString(), Deserializer.class);
+            } catch (ClassNotFoundException e) {
+                throw new SerializationException("Unknown fallback deserializer " + configured, e);
+            }
+        }
+        if (fallback != null) {
+            fallback.configure(configs, isKey);
+        }
+    }
+
+    @Override
+    public BillCreatedEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (BillCreatedEventCodec.isBinary(data)) {
+            return decode(data);
+        }
+        return (BillCreatedEvent) requireFallback(topic).deserialize(topic, data);
+    }
+
+    @Override
+    public BillCreatedEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (BillCreatedEventCodec.isBinary(data)) {
+            return decode(data);
+        }
+        return (BillCreatedEvent) requireFallback(topic).deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        if (fallback != null) {
+            fallback.close();
+        }
+    }
+
+    private BillCreatedEvent decode(byte[] data) {
+        try {
+            return BillCreatedEventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
+
+    private Deserializer<?> requireFallback(String topic) {
+        if (fallback == null) {
+            throw new SerializationException("Non-binary BillCreatedEvent on topic " + topic
+                    + " and no " + FALLBACK_DESERIALIZER_CONFIG + " configured");
+        }
+        return fallback;
+    }
+}
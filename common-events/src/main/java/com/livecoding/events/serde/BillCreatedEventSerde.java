@@ -0,0 +1,22 @@
+package com.livecoding.events.serde;
+
+import com.livecoding.events.BillCreatedEvent;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serdes;
+
+/**
+ * Serde binaire pour Kafka Streams (default.value.serde ou Consumed.with(...)).
+ */
+public class BillCreatedEventSerde extends Serdes.WrapperSerde<BillCreatedEvent> {
+
+    public BillCreatedEventSerde() {
+        super(new BillCreatedEventSerializer(), new BillCreatedEventDeserializer());
+    }
+
+    /**
+     * @param fallback deserializer utilisé pour les anciens messages JSON du topic
+     */
+    public BillCreatedEventSerde(Deserializer<?> fallback) {
+        super(new BillCreatedEventSerializer(), new BillCreatedEventDeserializer(fallback));
+    }
+}
@@ -0,0 +1,18 @@
+package com.livecoding.events.serde;
+
+import com.livecoding.events.BillCreatedEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializer Kafka binaire pour BillCreatedEvent (voir {@link BillCreatedEventCodec}).
+ *
+ * Utilisable par un KafkaProducer classique (value.serializer) comme par Kafka Streams
+ * (via {@link BillCreatedEventSerde}). Aucun header de type n'est ajouté.
+ */
+public class BillCreatedEventSerializer implements Serializer<BillCreatedEvent> {
+
+    @Override
+    public byte[] serialize(String topic, BillCreatedEvent event) {
+        return event == null ? null : BillCreatedEventCodec.encode(event);
+    }
+}
@@ -0,0 +1,172 @@
+package com.livecoding.events.serde;
+
+import com.livecoding.events.BillCreatedEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillCreatedEventDeserializerTest {
+
+    private static final String TOPIC = "bill-created-topic";
+
+    private final BillCreatedEventSerializer serializer = new BillCreatedEventSerializer();
+    private final BillCreatedEventDeserializer deserializer = new BillCreatedEventDeserializer();
+
+    @Test
+    void roundTripKeepsEveryField() {
+        BillCreatedEvent event = fullEvent();
+
+        byte[] data = serializer.serialize(TOPIC, event);
+
+        assertTrue(BillCreatedEventCodec.isBinary(data));
+        assertEquals(event, deserializer.deserialize(TOPIC, data));
+        assertEquals(event, deserializer.deserialize(TOPIC, new RecordHeaders(), data));
+    }
+
+    @Test
+    void roundTripKeepsNullOptionalFieldsNull() {
+        BillCreatedEvent event = BillCreatedEvent.builder().totalItems(0).totalAmount(0).build();
+
+        BillCreatedEvent decoded = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, event));
+
+        assertNull(decoded.getBillId());
+        assertNull(decoded.getCustomerId());
+        assertNull(decoded.getCustomerName());
+        assertNull(decoded.getCustomerEmail());
+        assertNull(decoded.getBillingDate());
+        assertEquals(event, decoded);
+    }
+
+    @Test
+    void higherVersionPayloadIsReadAndItsTrailingFieldsIgnored() {
+        BillCreatedEvent event = fullEvent();
+        byte[] current = serializer.serialize(TOPIC, event);
+
+        // Producteur plus récent : version suivante, champs ajoutés à la fin
+        byte[] newer = Arrays.copyOf(current, current.length + 5);
+        newer[1] = (byte) (BillCreatedEventCodec.CURRENT_VERSION + 1);
+        newer[current.length] = 0x03;
+        newer[current.length + 1] = 'a';
+        newer[current.length + 2] = 'b';
+        newer[current.length + 3] = 'c';
+        newer[current.length + 4] = 0x7F;
+
+        assertEquals(event, deserializer.deserialize(TOPIC, newer));
+    }
+
+    @Test
+    void everyTruncationFailsWithASerializationException() {
+        byte[] data = serializer.serialize(TOPIC, fullEvent());
+
+        // Exception propre (capturée par ErrorHandlingDeserializer -> valeur null), jamais un autre type
+        for (int length = 1; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, truncated),
+                    "truncated at " + length + " bytes");
+        }
+    }
+
+    @Test
+    void corruptPayloadsFailWithASerializationException() {
+        byte[] unsupportedVersion = {BillCreatedEventCodec.MAGIC, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        // 11 octets de continuation : varint plus long que 64 bits
+        byte[] malformedVarint = {BillCreatedEventCodec.MAGIC, 1, 1,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        // Nom de longueur -1 (zigzag 0x01) puis longueur bien supérieure au message
+        byte[] negativeLength = {BillCreatedEventCodec.MAGIC, 1, 1 << 2, 0x01, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        byte[] oversizedLength = {BillCreatedEventCodec.MAGIC, 1, 1 << 2, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, 0x7F, 'x'};
+
+        for (byte[] corrupt : new byte[][]{unsupportedVersion, malformedVarint, negativeLength, oversizedLength}) {
+            assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, corrupt));
+        }
+    }
+
+    @Test
+    void nullPayloadIsANullEvent() {
+        assertNull(deserializer.deserialize(TOPIC, null));
+        assertNull(serializer.serialize(TOPIC, null));
+    }
+
+    @Test
+    void jsonWithoutFallbackIsRejected() {
+        byte[] json = "{\"billId\":1}".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, json));
+    }
+
+    @Test
+    void jsonIsDelegatedToTheConfiguredFallbackDeserializer() {
+        BillCreatedEventDeserializer migrating = new BillCreatedEventDeserializer();
+        migrating.configure(Map.of(
+                BillCreatedEventDeserializer.FALLBACK_DESERIALIZER_CONFIG, RecordingJsonDeserializer.class.getName(),
+                "spring.json.trusted.packages", "com.livecoding.events"), false);
+        byte[] json = "{\"billId\":1}".getBytes(StandardCharsets.UTF_8);
+
+        BillCreatedEvent fromJson = migrating.deserialize(TOPIC, new RecordHeaders(), json);
+        BillCreatedEvent fromBinary = migrating.deserialize(TOPIC, serializer.serialize(TOPIC, fullEvent()));
+
+        assertEquals("{\"billId\":1}", fromJson.getCustomerName());
+        assertEquals(fullEvent(), fromBinary);
+        // Le repli reçoit la même configuration (spring.json.* etc.) et n'est appelé que pour le JSON
+        RecordingJsonDeserializer fallback = RecordingJsonDeserializer.last;
+        assertEquals("com.livecoding.events", fallback.configs.get("spring.json.trusted.packages"));
+        assertEquals(1, fallback.calls);
+
+        migrating.close();
+        assertTrue(fallback.closed);
+    }
+
+    private static BillCreatedEvent fullEvent() {
+        return BillCreatedEvent.builder()
+                .billId(42L)
+                .customerId(-7L)
+                .customerName("Élodie Müller")
+                .customerEmail("elodie@example.com")
+                .billingDate(new Date(1_760_000_000_000L))
+                .totalItems(3)
+                .totalAmount(1234.56)
+                .build();
+    }
+
+    /**
+     * Remplace JsonDeserializer (spring-kafka n'est pas une dépendance de ce module) :
+     * le corps reçu est renvoyé dans customerName.
+     */
+    public static class RecordingJsonDeserializer implements Deserializer<BillCreatedEvent> {
+
+        static RecordingJsonDeserializer last;
+
+        Map<String, ?> configs;
+        int calls;
+        boolean closed;
+
+        public RecordingJsonDeserializer() {
+            last = this;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            this.configs = configs;
+        }
+
+        @Override
+        public BillCreatedEvent deserialize(String topic, byte[] data) {
+            calls++;
+            return BillCreatedEvent.builder().customerName(new String(data, StandardCharsets.UTF_8)).build();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
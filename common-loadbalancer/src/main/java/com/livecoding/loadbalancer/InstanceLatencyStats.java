@@ -0,0 +1,263 @@
+package com.livecoding.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * ========================================
+ * LATENCE ET CHARGE PAR INSTANCE (LOAD BALANCING)
+ * ========================================
+ *
+ * Alimenté par l'adaptateur de chaque service (requestStarted / requestCompleted) : filtre
+ * LoadBalancerStatsFilter des routes lb:// de la gateway, LoadBalancerLifecycle des appels Feign
+ * de billing-service. Lu par {@link PeakEwmaLoadBalancer} :
+ *
+ * - Latence "peak EWMA" : un pic est pris immédiatement, puis oublié en moyenne exponentielle
+ *   (constante de temps decay-time). Sans trafic, l'estimation revient vers default-latency :
+ *   une instance écartée finit toujours par être re-sondée
+ * - Requêtes en cours (outstanding) : coût d'une instance = latence x (en cours + 1)
+ * - Ejection temporaire : failure-threshold échecs consécutifs (exception, 5xx) ou latence au-delà
+ *   de latency-outlier-factor x la médiane du service. Durée = base-ejection x nombre d'éjections
+ *   (plafonnée à max-ejection), jamais plus de max-ejected-percent des instances écartées
+ *
+ * Métriques par instance (tags service, instance) : loadbalancer.instance.latency (ms),
+ * loadbalancer.instance.outstanding, loadbalancer.instance.ejected (0/1),
+ * loadbalancer.instance.picks, loadbalancer.instance.ejections{reason=failures|latency}
+ */
+public class InstanceLatencyStats {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceLatencyStats.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Settings settings;
+    private final Map<String, Map<String, Instance>> services = new ConcurrentHashMap<>();
+
+    public InstanceLatencyStats(MeterRegistry meterRegistry, Settings settings) {
+        this.meterRegistry = meterRegistry;
+        this.settings = settings;
+    }
+
+    /**
+     * Réglages : gateway.load-balancing.* (gateway), billing.load-balancing.* (billing-service).
+     */
+    public record Settings(Duration decayTime, Duration defaultLatency, int failureThreshold,
+                           Duration baseEjection, Duration maxEjection, double maxEjectedPercent,
+                           double latencyOutlierFactor) {
+    }
+
+    public Instance instance(ServiceInstance serviceInstance) {
+        return services.computeIfAbsent(serviceInstance.getServiceId(), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key(serviceInstance), key -> new Instance(serviceInstance, key));
+    }
+
+    /**
+     * Instances éligibles pour une requête : instances non écartées, ou toutes si trop
+     * d'instances sont écartées (mieux vaut une instance douteuse qu'aucune).
+     */
+    public List<Instance> candidates(List<ServiceInstance> serviceInstances, long now) {
+        List<Instance> all = new ArrayList<>(serviceInstances.size());
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            Instance instance = instance(serviceInstance);
+            // Métadonnées Eureka les plus récentes pour la réponse du load balancer
+            instance.serviceInstance = serviceInstance;
+            all.add(instance);
+        }
+        ejectLatencyOutliers(all, now);
+
+        List<Instance> available = new ArrayList<>(all.size());
+        for (Instance instance : all) {
+            if (!instance.isEjected(now)) {
+                available.add(instance);
+            }
+        }
+        return available.size() >= minAvailable(all.size()) ? available : all;
+    }
+
+    /**
+     * Oublie les instances qui ne sont plus dans la liste Eureka du service (et leurs métriques).
+     */
+    public void retain(String serviceId, List<ServiceInstance> serviceInstances) {
+        Map<String, Instance> known = services.get(serviceId);
+        if (known == null) {
+            return;
+        }
+        Set<String> current = serviceInstances.stream().map(InstanceLatencyStats::key).collect(Collectors.toSet());
+        known.values().removeIf(instance -> {
+            if (current.contains(instance.key)) {
+                return false;
+            }
+            instance.meters.forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    private void ejectLatencyOutliers(List<Instance> all, long now) {
+        // Une médiane n'a de sens qu'à partir de 3 instances
+        if (settings.latencyOutlierFactor() <= 0 || all.size() < 3) {
+            return;
+        }
+        double[] latencies = all.stream()
+                .filter(instance -> !instance.isEjected(now))
+                .mapToDouble(instance -> instance.latencyNanos(now))
+                .sorted()
+                .toArray();
+        if (latencies.length < 3) {
+            return;
+        }
+        double limit = latencies[latencies.length / 2] * settings.latencyOutlierFactor();
+        for (Instance instance : all) {
+            if (!instance.isEjected(now) && instance.latencyNanos(now) > limit && canEject(all, now)) {
+                instance.eject(now, "latency");
+            }
+        }
+    }
+
+    private boolean canEject(List<Instance> all, long now) {
+        long ejected = all.stream().filter(instance -> instance.isEjected(now)).count();
+        return all.size() - ejected - 1 >= minAvailable(all.size());
+    }
+
+    private int minAvailable(int total) {
+        return Math.max(1, (int) Math.ceil(total * (1 - settings.maxEjectedPercent() / 100.0)));
+    }
+
+    private static String key(ServiceInstance serviceInstance) {
+        return serviceInstance.getHost() + ":" + serviceInstance.getPort();
+    }
+
+    /**
+     * Etat d'une instance (host:port) d'un service.
+     */
+    public final class Instance {
+
+        private final String key;
+        private final String serviceId;
+        private volatile ServiceInstance serviceInstance;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final Counter picks;
+        private final Counter failureEjections;
+        private final Counter latencyEjections;
+        private final List<Meter> meters;
+
+        // Protégés par this
+        private boolean sampled;
+        private double ewmaNanos;
+        private long stampNanos;
+        private int consecutiveFailures;
+        private int ejections;
+        private long lastEjectedAt;
+
+        private volatile long ejectedUntil = System.nanoTime();
+
+        private Instance(ServiceInstance serviceInstance, String key) {
+            this.key = key;
+            this.serviceId = serviceInstance.getServiceId();
+            this.serviceInstance = serviceInstance;
+            Tags tags = Tags.of("service", serviceId, "instance", key);
+            this.picks = Counter.builder("loadbalancer.instance.picks").tags(tags).register(meterRegistry);
+            this.failureEjections = Counter.builder("loadbalancer.instance.ejections")
+                    .tags(tags).tag("reason", "failures").register(meterRegistry);
+            this.latencyEjections = Counter.builder("loadbalancer.instance.ejections")
+                    .tags(tags).tag("reason", "latency").register(meterRegistry);
+            this.meters = Arrays.asList(picks, failureEjections, latencyEjections,
+                    Gauge.builder("loadbalancer.instance.latency", this, instance -> instance.latencyNanos(System.nanoTime()) / 1e6)
+                            .description("Latence peak EWMA de l'instance")
+                            .baseUnit("milliseconds")
+                            .tags(tags)
+                            .register(meterRegistry),
+                    Gauge.builder("loadbalancer.instance.outstanding", outstanding, AtomicInteger::get)
+                            .tags(tags)
+                            .register(meterRegistry),
+                    Gauge.builder("loadbalancer.instance.ejected", this, instance -> instance.isEjected(System.nanoTime()) ? 1 : 0)
+                            .tags(tags)
+                            .register(meterRegistry));
+        }
+
+        public ServiceInstance serviceInstance() {
+            return serviceInstance;
+        }
+
+        /**
+         * Coût pour le power of two choices : latence estimée x (requêtes en cours + 1).
+         */
+        public double cost(long now) {
+            return latencyNanos(now) * (outstanding.get() + 1);
+        }
+
+        public boolean isEjected(long now) {
+            return now - ejectedUntil < 0;
+        }
+
+        public void picked() {
+            picks.increment();
+        }
+
+        public void requestStarted() {
+            outstanding.incrementAndGet();
+        }
+
+        public void requestCompleted(long latencyNanos, boolean failed, long now) {
+            // Instance oubliée puis revue pendant la requête : pas de compteur négatif
+            outstanding.updateAndGet(count -> Math.max(0, count - 1));
+            record(latencyNanos, failed, now);
+        }
+
+        synchronized double latencyNanos(long now) {
+            long defaultNanos = settings.defaultLatency().toNanos();
+            if (!sampled) {
+                return defaultNanos;
+            }
+            double weight = Math.exp(-(double) (now - stampNanos) / settings.decayTime().toNanos());
+            return ewmaNanos * weight + defaultNanos * (1 - weight);
+        }
+
+        synchronized void record(long latencyNanos, boolean failed, long now) {
+            if (!sampled || latencyNanos > ewmaNanos) {
+                // Pic : pris immédiatement
+                ewmaNanos = latencyNanos;
+            } else {
+                double weight = Math.exp(-(double) (now - stampNanos) / settings.decayTime().toNanos());
+                ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+            }
+            sampled = true;
+            stampNanos = now;
+
+            if (!failed) {
+                consecutiveFailures = 0;
+                // Stable depuis max-ejection : la prochaine éjection repart de base-ejection
+                if (ejections > 0 && now - lastEjectedAt > settings.maxEjection().toNanos()) {
+                    ejections = 0;
+                }
+            } else if (settings.failureThreshold() > 0 && ++consecutiveFailures >= settings.failureThreshold()) {
+                consecutiveFailures = 0;
+                eject(now, "failures");
+            }
+        }
+
+        synchronized void eject(long now, String reason) {
+            ejections++;
+            long duration = Math.min(settings.baseEjection().toNanos() * ejections, settings.maxEjection().toNanos());
+            ejectedUntil = now + duration;
+            lastEjectedAt = now;
+            ("latency".equals(reason) ? latencyEjections : failureEjections).increment();
+            log.warn("⛔ Instance {} de {} écartée {} s ({}, latence {} ms)", key, serviceId,
+                    Duration.ofNanos(duration).toSeconds(), reason, Math.round(latencyNanos(now) / 1e6));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.livecoding.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ========================================
+ * LOAD BALANCER PEAK EWMA + POWER OF TWO CHOICES
+ * ========================================
+ *
+ * Remplace le round robin : deux instances éligibles sont tirées au hasard et la moins chère
+ * l'emporte (coût = latence peak EWMA x (requêtes en cours + 1), voir {@link InstanceLatencyStats}).
+ * Une réplique lente ou saturée reçoit donc de moins en moins de trafic, sans que toutes les
+ * requêtes ne se ruent sur la même "meilleure" instance comme avec un simple minimum.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final InstanceLatencyStats stats;
+    private volatile List<ServiceInstance> lastInstances;
+
+    public PeakEwmaLoadBalancer(String serviceId, ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                InstanceLatencyStats stats) {
+        this.serviceId = serviceId;
+        this.suppliers = suppliers;
+        this.stats = stats;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::select);
+    }
+
+    Response<ServiceInstance> select(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        // La liste (mise en cache par le supplier) ne change qu'au rafraîchissement Eureka
+        if (instances != lastInstances) {
+            stats.retain(serviceId, instances);
+            lastInstances = instances;
+        }
+        long now = System.nanoTime();
+        List<InstanceLatencyStats.Instance> candidates = stats.candidates(instances, now);
+        InstanceLatencyStats.Instance chosen = candidates.size() == 1 ? candidates.get(0) : powerOfTwoChoices(candidates, now);
+        chosen.picked();
+        return new DefaultResponse(chosen.serviceInstance());
+    }
+
+    private static InstanceLatencyStats.Instance powerOfTwoChoices(List<InstanceLatencyStats.Instance> candidates, long now) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        InstanceLatencyStats.Instance a = candidates.get(first);
+        InstanceLatencyStats.Instance b = candidates.get(second);
+        return a.cost(now) <= b.cost(now) ? a : b;
+    }
+}
@@ -0,0 +1,139 @@
+package com.livecoding.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeakEwmaLoadBalancerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InstanceLatencyStats stats = new InstanceLatencyStats(meterRegistry, new InstanceLatencyStats.Settings(
+            Duration.ofSeconds(10), Duration.ofMillis(20), 5, Duration.ofSeconds(30), Duration.ofMinutes(5), 50, 5));
+    private final PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer("inventory-service", null, stats);
+
+    private final List<ServiceInstance> instances = List.of(instance(1), instance(2), instance(3), instance(4));
+
+    @Test
+    void slowInstanceReceivesLittleTraffic() {
+        long now = System.nanoTime();
+        record(instances.get(0), 5 * MS, false, now);
+        record(instances.get(1), 6 * MS, false, now);
+        record(instances.get(2), 7 * MS, false, now);
+        record(instances.get(3), 30 * MS, false, now);
+
+        Map<Integer, Integer> picks = pick(4_000);
+
+        // Power of two choices : la plus lente perd tous ses duels, la plus rapide les gagne tous
+        assertEquals(0, picks.getOrDefault(4, 0));
+        assertTrue(picks.get(1) > picks.get(2) && picks.get(2) > picks.get(3), picks.toString());
+    }
+
+    @Test
+    void outstandingRequestsShiftTrafficAway() {
+        long now = System.nanoTime();
+        instances.forEach(instance -> record(instance, 5 * MS, false, now));
+        // 9 appels en cours sur l'instance 1 : coût x10
+        for (int i = 0; i < 9; i++) {
+            stats.instance(instances.get(0)).requestStarted();
+        }
+
+        assertEquals(0, pick(2_000).getOrDefault(1, 0));
+    }
+
+    @Test
+    void consecutiveFailuresEjectInstance() {
+        long now = System.nanoTime();
+        instances.forEach(instance -> record(instance, 5 * MS, false, now));
+        for (int i = 0; i < 5; i++) {
+            record(instances.get(1), 1 * MS, true, now);
+        }
+
+        assertEquals(0, pick(2_000).getOrDefault(2, 0));
+        assertEquals(1.0, meterRegistry.get("loadbalancer.instance.ejections")
+                .tags("instance", "10.0.0.2:8082", "reason", "failures").counter().count());
+        assertEquals(1.0, meterRegistry.get("loadbalancer.instance.ejected")
+                .tags("instance", "10.0.0.2:8082").gauge().value());
+    }
+
+    @Test
+    void successResetsFailureStreak() {
+        long now = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            record(instances.get(1), 1 * MS, true, now);
+        }
+        record(instances.get(1), 1 * MS, false, now);
+        record(instances.get(1), 1 * MS, true, now);
+
+        assertFalse(stats.instance(instances.get(1)).isEjected(System.nanoTime()));
+    }
+
+    @Test
+    void latencyOutlierIsEjected() {
+        long now = System.nanoTime();
+        record(instances.get(0), 5 * MS, false, now);
+        record(instances.get(1), 5 * MS, false, now);
+        record(instances.get(2), 6 * MS, false, now);
+        record(instances.get(3), 200 * MS, false, now);
+
+        loadBalancer.select(instances);
+
+        assertTrue(stats.instance(instances.get(3)).isEjected(System.nanoTime()));
+        assertEquals(1.0, meterRegistry.get("loadbalancer.instance.ejections")
+                .tags("instance", "10.0.0.4:8082", "reason", "latency").counter().count());
+    }
+
+    @Test
+    void neverEjectsMoreThanMaxEjectedPercent() {
+        long now = System.nanoTime();
+        instances.forEach(instance -> {
+            for (int i = 0; i < 5; i++) {
+                record(instance, 1 * MS, true, now);
+            }
+        });
+
+        // Toutes les instances sont écartées : le balancer continue de répondre avec l'une d'elles
+        Response<ServiceInstance> response = loadBalancer.select(instances);
+        assertTrue(response.hasServer());
+    }
+
+    @Test
+    void removedInstancesAreForgotten() {
+        long now = System.nanoTime();
+        instances.forEach(instance -> record(instance, 5 * MS, false, now));
+
+        loadBalancer.select(instances.subList(0, 2));
+
+        assertNull(meterRegistry.find("loadbalancer.instance.latency").tags("instance", "10.0.0.3:8082").gauge());
+        assertNotNull(meterRegistry.find("loadbalancer.instance.latency").tags("instance", "10.0.0.1:8082").gauge());
+    }
+
+    private Map<Integer, Integer> pick(int times) {
+        Map<Integer, Integer> picks = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            ServiceInstance chosen = loadBalancer.select(instances).getServer();
+            picks.merge(instances.indexOf(chosen) + 1, 1, Integer::sum);
+        }
+        return picks;
+    }
+
+    private void record(ServiceInstance instance, long latencyNanos, boolean failed, long now) {
+        stats.instance(instance).record(latencyNanos, failed, now);
+    }
+
+    private static ServiceInstance instance(int index) {
+        return new DefaultServiceInstance("inventory-service-" + index, "inventory-service",
+                "10.0.0." + index, 8082, false);
+    }
+}
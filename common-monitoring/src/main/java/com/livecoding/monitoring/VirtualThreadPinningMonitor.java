@@ -0,0 +1,113 @@
+package com.livecoding.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * ========================================
+ * DETECTION DU PINNING DES VIRTUAL THREADS
+ * ========================================
+ *
+ * Un virtual thread qui bloque à l'intérieur d'un bloc synchronized (ou d'un appel natif) reste
+ * "épinglé" à son thread porteur : sous charge, quelques appels bloquants suffisent alors à
+ * occuper tous les porteurs. Les événements JFR jdk.VirtualThreadPinned sont lus en continu
+ * (RecordingStream, sans fichier) :
+ *
+ * - Chaque épinglage au-delà du seuil est mesuré : jvm.threads.virtual.pinned (count, durée)
+ * - Chaque pile distincte est journalisée une seule fois (WARN), avec les frames qui bloquent
+ *
+ * Actif uniquement avec le profil virtual-threads (spring.threads.virtual.enabled=true, JRE 21+).
+ * Module partagé (common-monitoring) : chaque service l'importe (@Import sur sa classe Application).
+ */
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 15;
+    private static final int MAX_REPORTED_STACKS = 200;
+
+    private final boolean enabled;
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Set<String> reportedStacks = ConcurrentHashMap.newKeySet();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${spring.threads.virtual.enabled:false}") boolean enabled,
+            @Value("${virtual-threads.pinned-threshold:20ms}") Duration threshold
+    ) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads bloqués sur leur thread porteur (synchronized, appel natif)")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (Runtime.version().feature() < 21) {
+            log.warn("⚠️ spring.threads.virtual.enabled=true ignoré : JRE {} (21 requis)", Runtime.version());
+            return;
+        }
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        log.info("🧵 Virtual threads actifs, détection du pinning au-delà de {} ms", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        String stack = format(event.getStackTrace());
+        // Le timer compte toutes les occurrences, le log ne garde que les piles nouvelles
+        if (reportedStacks.size() < MAX_REPORTED_STACKS && reportedStacks.add(stack)) {
+            log.warn("📌 Virtual thread épinglé pendant {} ms ({})\n{}",
+                    event.getDuration().toMillis(),
+                    event.getThread() != null ? event.getThread().getJavaName() : "?",
+                    stack);
+        }
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\tat <pile indisponible>";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(MAX_FRAMES)
+                .map(VirtualThreadPinningMonitor::format)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")";
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
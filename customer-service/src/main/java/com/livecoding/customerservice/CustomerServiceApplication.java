@@ -2,12 +2,17 @@ package com.livecoding.customerservice;
 
 import com.livecoding.customerservice.entities.Customer;
 import com.livecoding.customerservice.repository.CustomerRepository;
+import com.livecoding.monitoring.VirtualThreadPinningMonitor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@Import(VirtualThreadPinningMonitor.class)   // common-monitoring : détection du pinning des virtual threads
 public class CustomerServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,19 @@
+package com.livecoding.customerservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Réponse de GET /api/customers/{id}/billing-summary.
+ */
+@Getter
+@AllArgsConstructor
+public class BillingSummary {
+    private Long customerId;
+    private double lifetimeSpend;
+    private long billCount;
+    private Date lastBillDate;
+    private double last30DaysSpend;
+}
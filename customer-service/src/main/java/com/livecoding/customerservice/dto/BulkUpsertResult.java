@@ -0,0 +1,14 @@
+package com.livecoding.customerservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Réponse de POST /api/customers/bulk : clients créés et mis à jour (clé = email).
+ */
+@Getter
+@AllArgsConstructor
+public class BulkUpsertResult {
+    private int created;
+    private int updated;
+}
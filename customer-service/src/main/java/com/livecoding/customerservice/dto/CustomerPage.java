@@ -0,0 +1,18 @@
+package com.livecoding.customerservice.dto;
+
+import com.livecoding.customerservice.entities.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Page de clients pour GET /api/customers/page.
+ * nextCursor est à repasser dans "after" pour la page suivante (null = dernière page).
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerPage {
+    private List<Customer> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,14 @@
+package com.livecoding.customerservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Entrée de GET /api/customers/top-spenders.
+ */
+@Getter
+@AllArgsConstructor
+public class TopSpender {
+    private Long customerId;
+    private Double spend;
+}
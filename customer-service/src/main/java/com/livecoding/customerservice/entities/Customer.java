@@ -2,11 +2,19 @@ package com.livecoding.customerservice.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.*;
 
 @Entity
+@EntityListeners(CustomerEntityListener.class)
+// Recherche par email (GET /api/customers/by-email) et clé de l'upsert groupé
+@Table(indexes = @Index(name = "idx_customer_email", columnList = "email", unique = true))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -14,7 +22,9 @@ import lombok.*;
 @Builder
 public class Customer {
     @Id 
-    @GeneratedValue
+    // SEQUENCE (et non IDENTITY) pour que Hibernate puisse regrouper les INSERT en batch JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50)
     @JsonProperty("id")
     private Long id;
     private String name;
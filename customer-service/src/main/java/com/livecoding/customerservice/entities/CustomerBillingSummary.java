@@ -0,0 +1,28 @@
+package com.livecoding.customerservice.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Projection (read model) de la facturation d'un client, mise à jour à chaque
+ * BillCreatedEvent reçu (voir BillingSummaryProjection).
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_billing_summary_lifetime_spend", columnList = "lifetimeSpend"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+public class CustomerBillingSummary {
+    @Id
+    private Long customerId;
+    private double lifetimeSpend;
+    private long billCount;
+    private Date lastBillDate;
+}
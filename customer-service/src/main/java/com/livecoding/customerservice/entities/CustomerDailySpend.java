@@ -0,0 +1,33 @@
+package com.livecoding.customerservice.entities;
+
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Dépense d'un client sur une journée (UTC). Le cumul glissant sur 30 jours
+ * est la somme d'au plus 30 lignes, lues par clé primaire (customerId, day).
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class CustomerDailySpend {
+    @EmbeddedId
+    private Key id;
+    private double amount;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long customerId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,42 @@
+package com.livecoding.customerservice.entities;
+
+import com.livecoding.customerservice.kafka.CustomerEventProducer;
+import com.livecoding.events.CustomerChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA : toute écriture d'un {@link Customer} (REST, Spring Data REST, CommandLineRunner...)
+ * déclenche la publication d'un {@link CustomerChangedEvent}.
+ */
+@Component
+public class CustomerEntityListener {
+
+    private final CustomerEventProducer customerEventProducer;
+
+    public CustomerEntityListener(CustomerEventProducer customerEventProducer) {
+        this.customerEventProducer = customerEventProducer;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Customer customer) {
+        customerEventProducer.sendCustomerChanged(toEvent(customer, false));
+    }
+
+    @PostRemove
+    public void onRemoved(Customer customer) {
+        customerEventProducer.sendCustomerChanged(toEvent(customer, true));
+    }
+
+    private CustomerChangedEvent toEvent(Customer customer, boolean deleted) {
+        return CustomerChangedEvent.builder()
+                .customerId(customer.getId())
+                .name(customer.getName())
+                .email(customer.getEmail())
+                .deleted(deleted)
+                .build();
+    }
+}
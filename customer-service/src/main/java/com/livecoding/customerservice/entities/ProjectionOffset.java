@@ -0,0 +1,21 @@
+package com.livecoding.customerservice.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+/**
+ * Dernier offset Kafka appliqué à la projection, par partition ("topic-partition").
+ * Enregistré dans la même transaction que la projection : un batch rejoué
+ * (commit Kafka perdu, rebalance...) n'est jamais compté deux fois.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ProjectionOffset {
+    @Id
+    private String topicPartition;
+    private long lastOffset;
+}
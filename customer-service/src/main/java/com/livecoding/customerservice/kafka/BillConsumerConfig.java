@@ -0,0 +1,97 @@
+package com.livecoding.customerservice.kafka;
+
+import com.livecoding.events.BillCreatedEvent;
+import com.livecoding.events.serde.BillCreatedEventSerializer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ========================================
+ * CONSUMER EN BATCH - bill-created-topic
+ * ========================================
+ *
+ * - Listener en mode batch : un poll() = une liste d'événements (max.poll.records)
+ * - Concurrence = nombre de partitions du topic (KAFKA_NUM_PARTITIONS=3) :
+ *   un thread consommateur par partition, le débit suit le nombre de partitions
+ * - Commit manuel des offsets, une fois le batch entièrement traité
+ * - Événement en échec : aucun retry bloquant sur la partition principale, il est
+ *   republié immédiatement sur kafka.topic.bill-created-failed (retries non bloquants,
+ *   voir BillEventRetryConsumer)
+ * - Profil virtual-threads : les threads consommateurs sont des virtual threads (la factory
+ *   par défaut, utilisée par BillEventRetryConsumer, est configurée par Spring Boot)
+ */
+@Configuration
+public class BillConsumerConfig {
+
+    public static final String BATCH_FACTORY = "billBatchListenerContainerFactory";
+    public static final String RETRY_TEMPLATE = "billRetryKafkaTemplate";
+
+    @Bean(BATCH_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, BillCreatedEvent> billBatchListenerContainerFactory(
+            ConsumerFactory<String, BillCreatedEvent> consumerFactory,
+            @Qualifier(RETRY_TEMPLATE) KafkaTemplate<String, Object> billRetryKafkaTemplate,
+            @Value("${kafka.consumer.bill-created.concurrency:3}") int concurrency,
+            @Value("${kafka.topic.bill-created-failed}") String failedTopic,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, BillCreatedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        if (virtualThreads) {
+            factory.getContainerProperties().setListenerTaskExecutor(new VirtualThreadTaskExecutor("bill-consumer-"));
+        }
+
+        // Partition -1 : le producteur choisit la partition d'après la clé (billId)
+        DeadLetterPublishingRecoverer toRetryTopic = new DeadLetterPublishingRecoverer(billRetryKafkaTemplate,
+                (record, exception) -> new TopicPartition(failedTopic, -1));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(toRetryTopic, new FixedBackOff(0L, 0L)));
+        return factory;
+    }
+
+    /**
+     * Template des republications (retry, DLT, replay) : BillCreatedEvent reste en binaire
+     * (common-events), un record non désérialisable est republié tel quel (byte[]).
+     */
+    @Bean(RETRY_TEMPLATE)
+    public KafkaTemplate<String, Object> billRetryKafkaTemplate(ProducerFactory<?, ?> producerFactory) {
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(BillCreatedEvent.class, new BillCreatedEventSerializer());
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerFactory.getConfigurationProperties(),
+                new StringSerializer(), new DelegatingByTypeSerializer(serializers)));
+    }
+
+    /**
+     * Le template de Spring Boot n'est créé qu'en l'absence de tout KafkaTemplate :
+     * on le redéclare pour CustomerEventProducer.
+     */
+    @Bean
+    @Primary
+    public KafkaTemplate<?, ?> kafkaTemplate(ProducerFactory<Object, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+}
@@ -1,101 +1,280 @@
 package com.livecoding.customerservice.kafka;
 
+import com.livecoding.customerservice.service.BillingSummaryProjection;
 import com.livecoding.events.BillCreatedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ========================================
+ * KAFKA CONSUMER - bill-created-topic (BATCH)
+ * ========================================
+ *
+ * - Un appel = le batch d'un poll() (voir BillConsumerConfig : concurrence par partition, ack manuel)
+ * - Offsets commités une fois le batch traité (ack), jamais avant
+ * - Chaque batch alimente le read model BillingSummaryProjection (GET /api/customers/{id}/billing-summary)
+ * - Un événement en échec ne bloque pas la partition : les offsets précédents sont commités,
+ *   l'événement part sur le topic de retry (voir BillConsumerConfig / BillEventRetryConsumer)
+ *   et le reste du batch est relivré
+ * - La projection en échec (base indisponible...) n'est jamais envoyée en retry : le retry et la
+ *   DLT ne l'alimentent pas, et l'offset suivant la rendrait définitivement incomplète. Le batch
+ *   entier est relivré après kafka.consumer.bill-created.projection-retry-ms (nack)
+ * - BACKPRESSURE: avant le poll suivant, une partition dont le prochain batch dépasserait
+ *   kafka.consumer.bill-created.slow-batch-ms (coût aval par événement x lag) est mise en pause
+ *   (kafka.consumer.bill-created.pause-ms) puis reprise, voir PartitionBackpressure. Le consumer
+ *   continue de poller (pas de rebalance pour dépassement de max.poll.interval.ms)
+ * - RECONSTRUCTION: la projection est en mémoire (H2). À l'assignation, chaque partition repart du
+ *   dernier offset appliqué à la projection (ProjectionOffset + 1), ou du début du topic s'il n'y en
+ *   a pas. Les événements déjà commités dans Kafka ne font que reconstruire la projection :
+ *   BillEventProcessor ne les retraite pas
+ * - Métriques: customer.consumer.lag{partition}, customer.consumer.batch.size,
+ *   customer.consumer.batch.duration, customer.consumer.paused{partition}
+ */
 @Service    // Composant Spring géré par le conteneur IoC
 @Slf4j      // Lombok: Génère automatiquement un logger
-public class BillEventConsumer {
+public class BillEventConsumer implements ConsumerSeekAware {
+
+    public static final String LISTENER_ID = "bill-created-batch";
+
+    private final BillingSummaryProjection billingSummaryProjection;
+    private final BillEventProcessor billEventProcessor;
+    private final KafkaListenerEndpointRegistry registry;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+    private final Timer batchDuration;
+    private final long slowBatchMs;
+    private final long pauseMs;
+    private final int maxPollRecords;
+    private final Duration projectionRetry;
+    private final Map<TopicPartition, PartitionBackpressure> backpressure = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, AtomicLong> lagByPartition = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, AtomicLong> pausedByPartition = new ConcurrentHashMap<>();
+    // Partition -> offset commité à l'assignation : en dessous, relecture pour la projection uniquement
+    private final Map<TopicPartition, Long> rebuildUntil = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService resumer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("bill-consumer-resume-"));
+
+    public BillEventConsumer(
+            BillingSummaryProjection billingSummaryProjection,
+            BillEventProcessor billEventProcessor,
+            KafkaListenerEndpointRegistry registry,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.consumer.bill-created.slow-batch-ms:2000}") long slowBatchMs,
+            @Value("${kafka.consumer.bill-created.pause-ms:1000}") long pauseMs,
+            @Value("${spring.kafka.consumer.max-poll-records:500}") int maxPollRecords,
+            @Value("${kafka.consumer.bill-created.projection-retry-ms:1000}") long projectionRetryMs
+    ) {
+        this.billingSummaryProjection = billingSummaryProjection;
+        this.billEventProcessor = billEventProcessor;
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+        this.slowBatchMs = slowBatchMs;
+        this.pauseMs = pauseMs;
+        this.maxPollRecords = maxPollRecords;
+        this.projectionRetry = Duration.ofMillis(projectionRetryMs);
+        this.batchSize = DistributionSummary.builder("customer.consumer.batch.size")
+                .description("Nombre d'événements BillCreatedEvent par batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("customer.consumer.batch.duration")
+                .description("Durée de traitement d'un batch BillCreatedEvent")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
 
     @KafkaListener(
-        topics = "bill-created-topic",      // Topic à écouter (doit correspondre au producer)
-        groupId = "billing-group"           // Groupe de consommateurs (load balancing)
+        id = LISTENER_ID,
+        topics = "${kafka.topic.bill-created}",     // Topic à écouter (doit correspondre au producer)
+        groupId = "billing-group",                   // Groupe de consommateurs (load balancing)
+        containerFactory = BillConsumerConfig.BATCH_FACTORY
     )
-    public void consumeBillCreatedEvent(BillCreatedEvent event) {
+    public void consumeBillCreatedEvents(
+            List<ConsumerRecord<String, BillCreatedEvent>> records,
+            Acknowledgment acknowledgment,
+            Consumer<?, ?> consumer
+    ) {
         /*
          * PROCESSUS DE RECEPTION:
-         * 1. Kafka envoie le message (bytes) au consumer
-         * 2. Spring deserialise les bytes → JSON → BillCreatedEvent
-
-         */
-        
-        log.info("========================================");
-        log.info("📥 KAFKA CONSUMER: Événement reçu !");
-        log.info("   → Topic: bill-created-topic");
-        log.info("   → Consumer Group: billing-group");
-        log.info("========================================");
-        
-        // Affichage des détails de l'événement
-        log.info("📄 DÉTAILS DE LA FACTURE:");
-        log.info("   → Bill ID: {}", event.getBillId());
-        log.info("   → Customer ID: {}", event.getCustomerId());
-        log.info("   → Customer Name: {}", event.getCustomerName());
-        log.info("   → Customer Email: {}", event.getCustomerEmail());
-        log.info("   → Billing Date: {}", event.getBillingDate());
-        log.info("   → Total Items: {}", event.getTotalItems());
-        log.info("   → Total Amount: {} €", event.getTotalAmount());
-        log.info("========================================");
-        
-        /*
-         * ========================================
-         * LOGIQUE MÉTIER - TRAITEMENT DE L'ÉVÉNEMENT
-         * ========================================
-         * 
-         * C'est ici que vous implémentez la vraie logique:
+         * 1. Kafka envoie un lot de messages (bytes) au consumer (un thread par partition assignée)
+         * 2. Spring deserialise chaque message → BillCreatedEvent
+         * 3. Le lot est traité, puis les offsets sont commités (ack)
          */
-        
+        long start = System.nanoTime();
+        Set<TopicPartition> partitions = new LinkedHashSet<>();
+        double batchAmount = 0;
+
+        // Projection + offsets dans une transaction, avant le commit Kafka.
+        // Les événements relivrés après un échec partiel sont ignorés par la projection.
         try {
-            // 1. NOTIFICATION PAR EMAIL (exemple)
-            log.info("📧 Envoi d'un email de confirmation à {}", event.getCustomerEmail());
-            // sendEmail(event.getCustomerEmail(), "Votre facture #" + event.getBillId());
-            
-            // 2. MISE À JOUR DES STATISTIQUES (exemple)
-            log.info("📊 Mise à jour des statistiques de facturation");
-            // statisticsService.incrementTotalBills();
-            // statisticsService.addRevenue(event.getTotalAmount());
-            
-            // 3. NOTIFICATION PUSH (exemple)
-            log.info("🔔 Envoi d'une notification push au client");
-            // notificationService.sendPush(event.getCustomerId(), "Facture créée");
-            
-            // 4. ARCHIVAGE (exemple)
-            log.info("📦 Archivage de la facture pour la comptabilité");
-            // archiveService.archive(event);
-            
-            // 5. AUDIT LOG (exemple)
-            log.info("📝 Enregistrement dans le journal d'audit");
-            // auditService.log("BILL_CREATED", event.getBillId(), event.getCustomerId());
-            
-            log.info("✅ Événement traité avec succès !");
-            
-        } catch (Exception e) {
-            /*
-             * GESTION D'ERREURS:
-             * Si une exception se produit, Kafka peut:
-             * 1. Réessayer automatiquement (si configuré)
-             * 2. Envoyer le message vers un Dead Letter Topic (DLT)
-             * 3. Ignorer le message et continuer
-             * 
-             * Configuration dans application.properties:
-             * spring.kafka.consumer.enable-auto-commit=true
-             * = Si erreur, Kafka recommence au dernier message committé
-             */
-            log.error("❌ Erreur lors du traitement de l'événement: {}", e.getMessage());
-            log.error("   → Bill ID: {}", event.getBillId());
-            log.error("   → Erreur: ", e);
-            
-            // Option: Envoyer vers un Dead Letter Topic pour analyse
-            // kafkaTemplate.send("bill-created-errors", event);
-            
-            // Option: Lever une exception pour que Kafka retry
-            // throw new RuntimeException("Échec du traitement", e);
+            billingSummaryProjection.apply(records);
+        } catch (RuntimeException e) {
+            // Pas de BatchListenerFailedException : le batch entier est relu, rien ne part en retry
+            log.error("❌ Projection billing-summary en échec, batch de {} événements relivré dans {} ms",
+                    records.size(), projectionRetry.toMillis(), e);
+            acknowledgment.nack(projectionRetry);
+            return;
+        }
+
+        int rebuilt = 0;
+        for (ConsumerRecord<String, BillCreatedEvent> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            partitions.add(partition);
+            if (record.offset() < rebuildUntil.getOrDefault(partition, -1L)) {
+                // Déjà traité avant le redémarrage : seule la projection en avait besoin
+                rebuilt++;
+                continue;
+            }
+            BillCreatedEvent event = record.value();
+            try {
+                if (event == null) {
+                    // Valeur non désérialisable (ErrorHandlingDeserializer) : message empoisonné
+                    throw new IllegalStateException("BillCreatedEvent illisible");
+                }
+                billEventProcessor.process(event);
+            } catch (RuntimeException e) {
+                // Le DefaultErrorHandler commite les offsets précédents et envoie ce record en retry
+                throw new BatchListenerFailedException("Échec du traitement du record "
+                        + record.partition() + "@" + record.offset(), e, record);
+            }
+            batchAmount += event.getTotalAmount();
+        }
+        acknowledgment.acknowledge();
+
+        long elapsedNanos = System.nanoTime() - start;
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        batchSize.record(records.size());
+        batchDuration.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        log.info("📥 Batch bill-created traité: {} événements ({} relus pour la projection), {} € sur {} en {} ms",
+                records.size(), rebuilt, Math.round(batchAmount), partitions, elapsedMs);
+
+        // Avant le poll suivant : le traitement aval suivra-t-il le prochain batch ?
+        Set<TopicPartition> toPause = new LinkedHashSet<>();
+        for (TopicPartition partition : partitions) {
+            long lag = recordLag(consumer, partition);
+            if (backpressure(partition).afterBatch(records.size(), elapsedNanos, lag)) {
+                toPause.add(partition);
+            }
+        }
+        if (!toPause.isEmpty()) {
+            pause(toPause);
         }
-        
-        log.info("========================================");
     }
-    
+
+    /**
+     * Repositionne chaque partition assignée sur la projection plutôt que sur l'offset commité :
+     * après un redémarrage (H2 vide), la projection est reconstruite depuis le début du topic.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<TopicPartition, Long> applied = billingSummaryProjection.lastAppliedOffsets(assignments.keySet());
+        assignments.forEach((partition, committed) -> {
+            Long lastApplied = applied.get(partition);
+            if (lastApplied == null) {
+                log.info("🔄 {} : projection vide, relecture depuis le début (offset commité {})", partition, committed);
+                callback.seekToBeginning(partition.topic(), partition.partition());
+                rebuildUntil.put(partition, committed != null ? committed : 0L);
+            } else if (committed == null || lastApplied + 1 < committed) {
+                log.info("🔄 {} : projection à l'offset {}, relecture jusqu'à {}", partition, lastApplied, committed);
+                callback.seek(partition.topic(), partition.partition(), lastApplied + 1);
+                rebuildUntil.put(partition, committed != null ? committed : lastApplied + 1);
+            } else {
+                // Projection à jour (ou en avance) : la position commitée est conservée
+                rebuildUntil.remove(partition);
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        partitions.forEach(rebuildUntil::remove);
+        partitions.forEach(backpressure::remove);
+    }
+
+    PartitionBackpressure backpressure(TopicPartition partition) {
+        return backpressure.computeIfAbsent(partition,
+                tp -> new PartitionBackpressure(TimeUnit.MILLISECONDS.toNanos(slowBatchMs), maxPollRecords));
+    }
+
+    /**
+     * @return lag de la partition, -1 si le consumer ne le connaît pas encore
+     */
+    private long recordLag(Consumer<?, ?> consumer, TopicPartition partition) {
+        OptionalLong lag = consumer.currentLag(partition);
+        if (lag.isEmpty()) {
+            return -1;
+        }
+        partitionGauge(lagByPartition, "customer.consumer.lag", partition).set(lag.getAsLong());
+        return lag.getAsLong();
+    }
+
+    private void pause(Set<TopicPartition> partitions) {
+        MessageListenerContainer container = registry.getListenerContainer(LISTENER_ID);
+        if (container == null) {
+            partitions.forEach(partition -> backpressure(partition).resumed());
+            return;
+        }
+        log.warn("⏸️ Prochain batch prévu au-delà de {} ms : pause de {} pendant {} ms", slowBatchMs, partitions, pauseMs);
+        for (TopicPartition partition : partitions) {
+            // Appliqué par le conteneur avant son prochain poll
+            container.pausePartition(partition);
+            partitionGauge(pausedByPartition, "customer.consumer.paused", partition).set(1);
+        }
+        resumer.schedule(() -> {
+            for (TopicPartition partition : partitions) {
+                container.resumePartition(partition);
+                backpressure(partition).resumed();
+                partitionGauge(pausedByPartition, "customer.consumer.paused", partition).set(0);
+            }
+            log.info("▶️ Reprise de {}", partitions);
+        }, pauseMs, TimeUnit.MILLISECONDS);
+    }
+
+    private AtomicLong partitionGauge(Map<TopicPartition, AtomicLong> gauges, String name, TopicPartition partition) {
+        return gauges.computeIfAbsent(partition, tp -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder(name, value, AtomicLong::get)
+                    .tag("topic", tp.topic())
+                    .tag("partition", String.valueOf(tp.partition()))
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        resumer.shutdownNow();
+    }
+
     /*
      * ========================================
      * MÉTHODES CONSUMER AVANCÉES (Optionnel)
@@ -0,0 +1,106 @@
+package com.livecoding.customerservice.kafka;
+
+import com.livecoding.events.BillCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rejoue les événements du dead letter topic (POST /api/bill-events/dlt/replay).
+ *
+ * Les records sont relus en byte[] (un événement illisible ne bloque pas le replay) et
+ * republiés tels quels sur kafka.topic.bill-created-failed : ils repassent par le
+ * traitement et ses retries. Ils ne sont pas renvoyés sur bill-created-topic, la
+ * projection BillingSummaryProjection les ayant déjà comptés.
+ *
+ * La position du replay est celle du groupe bill-dlt-replay : un record n'est rejoué
+ * qu'une fois, ses offsets étant commités après l'envoi.
+ */
+@Service
+@Slf4j
+public class BillEventDltReplayer {
+
+    private static final String REPLAY_GROUP = "bill-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final ConsumerFactory<String, BillCreatedEvent> consumerFactory;
+    private final KafkaTemplate<String, Object> retryTemplate;
+
+    @Value("${kafka.topic.bill-created-dlt}")
+    private String dltTopic;
+
+    @Value("${kafka.topic.bill-created-failed}")
+    private String failedTopic;
+
+    public BillEventDltReplayer(
+            ConsumerFactory<String, BillCreatedEvent> consumerFactory,
+            @Qualifier(BillConsumerConfig.RETRY_TEMPLATE) KafkaTemplate<String, Object> retryTemplate
+    ) {
+        this.consumerFactory = consumerFactory;
+        this.retryTemplate = retryTemplate;
+    }
+
+    /**
+     * @return le nombre d'événements rejoués (au plus max)
+     */
+    public synchronized int replay(int max) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(Math.min(max, 500)));
+
+        int replayed = 0;
+        try (Consumer<String, BillCreatedEvent> raw = consumerFactory.createConsumer(REPLAY_GROUP, "-replay", null, overrides)) {
+            @SuppressWarnings("unchecked")
+            Consumer<String, byte[]> consumer = (Consumer<String, byte[]>) (Consumer<?, ?>) raw;
+            List<TopicPartition> partitions = consumer.partitionsFor(dltTopic).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+
+            while (replayed < max) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed == max) {
+                        break;
+                    }
+                    sends.add(retryTemplate.send(failedTopic, record.key(), record.value()));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                // Offsets commités seulement une fois les envois confirmés
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+                consumer.commitSync(offsets);
+            }
+        }
+        log.info("♻️ {} événement(s) rejoué(s) depuis {} vers {}", replayed, dltTopic, failedTopic);
+        return replayed;
+    }
+}
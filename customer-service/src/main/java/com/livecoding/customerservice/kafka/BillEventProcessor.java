@@ -0,0 +1,41 @@
+package com.livecoding.customerservice.kafka;
+
+import com.livecoding.events.BillCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * ========================================
+ * LOGIQUE MÉTIER - TRAITEMENT D'UN BillCreatedEvent
+ * ========================================
+ *
+ * Appelé par le listener principal (batch) puis, en cas d'échec, par les topics de retry
+ * (BillEventRetryConsumer). Une exception ici ne bloque pas la partition principale :
+ * l'événement part en retry et le reste du batch continue.
+ */
+@Component
+@Slf4j
+public class BillEventProcessor {
+
+    public void process(BillCreatedEvent event) {
+        // 1. NOTIFICATION PAR EMAIL (exemple)
+        // sendEmail(event.getCustomerEmail(), "Votre facture #" + event.getBillId());
+
+        // 2. MISE À JOUR DES STATISTIQUES (exemple)
+        // statisticsService.incrementTotalBills();
+        // statisticsService.addRevenue(event.getTotalAmount());
+
+        // 3. NOTIFICATION PUSH (exemple)
+        // notificationService.sendPush(event.getCustomerId(), "Facture créée");
+
+        // 4. ARCHIVAGE (exemple)
+        // archiveService.archive(event);
+
+        // 5. AUDIT LOG (exemple)
+        // auditService.log("BILL_CREATED", event.getBillId(), event.getCustomerId());
+
+        // Logs par événement en DEBUG uniquement (coûteux à fort débit)
+        log.debug("📄 Facture {} client {} ({}) : {} items, {} €", event.getBillId(), event.getCustomerId(),
+                event.getCustomerEmail(), event.getTotalItems(), event.getTotalAmount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.livecoding.customerservice.kafka;
+
+import com.livecoding.events.BillCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.BackOff;
+import org.springframework.kafka.annotation.DltHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+/**
+ * ========================================
+ * RETRIES NON BLOQUANTS + DEAD LETTER TOPIC
+ * ========================================
+ *
+ * Les événements en échec dans BillEventConsumer arrivent sur bill-created-failed, puis :
+ *
+ *   bill-created-failed                 → nouvel essai immédiat, hors partition principale
+ *   bill-created-failed-retry-1000      → après 1 s
+ *   bill-created-failed-retry-10000     → après 10 s
+ *   bill-created-failed-retry-60000     → après 1 min
+ *   bill-created-failed-dlt             → abandon (rejouable : POST /api/bill-events/dlt/replay)
+ *
+ * L'attente se fait en mettant en pause la partition du topic de retry (pas de sleep) :
+ * ni la partition principale ni les autres événements en retry ne sont bloqués.
+ * Les topics sont créés au démarrage.
+ */
+@Service
+@Slf4j
+public class BillEventRetryConsumer {
+
+    private final BillEventProcessor billEventProcessor;
+    private final Counter retried;
+    private final Counter deadLettered;
+
+    public BillEventRetryConsumer(BillEventProcessor billEventProcessor, MeterRegistry meterRegistry) {
+        this.billEventProcessor = billEventProcessor;
+        this.retried = Counter.builder("customer.consumer.retry.attempts")
+                .description("Tentatives de traitement sur les topics de retry")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("customer.consumer.dlt")
+                .description("Événements BillCreatedEvent envoyés au dead letter topic")
+                .register(meterRegistry);
+    }
+
+    @RetryableTopic(
+            attempts = "${kafka.consumer.bill-created.retry.attempts:4}",
+            backOff = @BackOff(
+                    delayString = "${kafka.consumer.bill-created.retry.delay-ms:1000}",
+                    multiplierString = "${kafka.consumer.bill-created.retry.multiplier:10}",
+                    maxDelayString = "${kafka.consumer.bill-created.retry.max-delay-ms:60000}"),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_DELAY_VALUE,
+            kafkaTemplate = BillConsumerConfig.RETRY_TEMPLATE
+    )
+    @KafkaListener(
+            id = "bill-created-retry",
+            topics = "${kafka.topic.bill-created-failed}",
+            groupId = "billing-group-retry"
+    )
+    public void retry(ConsumerRecord<String, BillCreatedEvent> record) {
+        retried.increment();
+        log.info("🔁 Retry facture {} depuis {}", record.key(), record.topic());
+        billEventProcessor.process(record.value());
+    }
+
+    @DltHandler
+    public void deadLetter(
+            ConsumerRecord<String, BillCreatedEvent> record,
+            @Header(name = KafkaHeaders.EXCEPTION_MESSAGE, required = false) String error
+    ) {
+        deadLettered.increment();
+        log.error("☠️ Facture {} abandonnée après tous les retries ({}) : {}", record.key(), record.topic(), error);
+    }
+}
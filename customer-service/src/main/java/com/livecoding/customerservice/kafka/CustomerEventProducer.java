@@ -0,0 +1,52 @@
+package com.livecoding.customerservice.kafka;
+
+import com.livecoding.events.CustomerChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publie un {@link CustomerChangedEvent} sur Kafka à chaque changement de client.
+ *
+ * L'envoi est différé après le commit de la transaction en cours : un consommateur
+ * ne voit jamais un client qui n'a finalement pas été enregistré.
+ */
+@Service
+@Slf4j
+public class CustomerEventProducer {
+
+    private final KafkaTemplate<String, CustomerChangedEvent> kafkaTemplate;
+
+    @Value("${kafka.topic.customer-changed}")
+    private String topicName;
+
+    public CustomerEventProducer(KafkaTemplate<String, CustomerChangedEvent> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void sendCustomerChanged(CustomerChangedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    private void send(CustomerChangedEvent event) {
+        kafkaTemplate.send(topicName, event.getCustomerId().toString(), event)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.warn("❌ Publication de CustomerChangedEvent impossible (customerId={}): {}",
+                                event.getCustomerId(), error.getMessage());
+                    }
+                });
+    }
+}
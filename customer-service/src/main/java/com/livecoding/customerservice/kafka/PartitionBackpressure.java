@@ -0,0 +1,73 @@
+package com.livecoding.customerservice.kafka;
+
+/**
+ * ========================================
+ * BACKPRESSURE D'UNE PARTITION (bill-created-topic)
+ * ========================================
+ *
+ * Machine à états RUNNING -> PAUSED -> RUNNING, évaluée par BillEventConsumer à la fin de chaque
+ * batch, donc avant le poll suivant (la pause demandée au conteneur s'applique avant ce poll).
+ *
+ * On n'attend pas qu'un batch lent soit terminé : le coût par événement du traitement aval
+ * (moyenne mobile exponentielle) multiplié par ce qui attend dans la partition (lag, au plus
+ * max.poll.records) donne la durée prévue du prochain batch. Au-delà de slow-batch-ms, la
+ * partition passe en pause.
+ *
+ * À la reprise, le batch suivant est toujours traité : il mesure à nouveau le coût aval avant toute
+ * nouvelle pause (pas de pause sans fin sur une ancienne mesure).
+ */
+class PartitionBackpressure {
+
+    enum State { RUNNING, PAUSED }
+
+    // Poids du dernier batch dans la moyenne du coût par événement
+    private static final double ALPHA = 0.3;
+
+    private final long slowBatchNanos;
+    private final int maxPollRecords;
+
+    private State state = State.RUNNING;
+    private double nanosPerRecord = -1;
+
+    PartitionBackpressure(long slowBatchNanos, int maxPollRecords) {
+        this.slowBatchNanos = slowBatchNanos;
+        this.maxPollRecords = maxPollRecords;
+    }
+
+    /**
+     * Enregistre un batch traité et décide de la pause avant le poll suivant.
+     *
+     * @param lag événements restant dans la partition, -1 si inconnu
+     * @return true si la partition vient de passer en pause
+     */
+    synchronized boolean afterBatch(int records, long elapsedNanos, long lag) {
+        if (records > 0) {
+            double cost = (double) elapsedNanos / records;
+            nanosPerRecord = nanosPerRecord < 0 ? cost : nanosPerRecord + ALPHA * (cost - nanosPerRecord);
+        }
+        if (state == State.PAUSED || predictedNextBatchNanos(lag) <= slowBatchNanos) {
+            return false;
+        }
+        state = State.PAUSED;
+        return true;
+    }
+
+    synchronized void resumed() {
+        state = State.RUNNING;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Durée prévue du prochain batch : coût par événement x taille du prochain poll.
+     */
+    synchronized long predictedNextBatchNanos(long lag) {
+        if (nanosPerRecord < 0) {
+            return 0;
+        }
+        long nextRecords = lag < 0 ? maxPollRecords : Math.min(lag, maxPollRecords);
+        return Math.round(nanosPerRecord * nextRecords);
+    }
+}
@@ -0,0 +1,14 @@
+package com.livecoding.customerservice.repository;
+
+import com.livecoding.customerservice.entities.CustomerBillingSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import java.util.List;
+
+@RepositoryRestResource(exported = false)
+public interface CustomerBillingSummaryRepository extends JpaRepository<CustomerBillingSummary, Long> {
+
+    List<CustomerBillingSummary> findByOrderByLifetimeSpendDesc(Limit limit);
+}
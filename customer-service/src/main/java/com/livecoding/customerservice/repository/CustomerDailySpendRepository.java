@@ -0,0 +1,30 @@
+package com.livecoding.customerservice.repository;
+
+import com.livecoding.customerservice.dto.TopSpender;
+import com.livecoding.customerservice.entities.CustomerDailySpend;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RepositoryRestResource(exported = false)
+public interface CustomerDailySpendRepository extends JpaRepository<CustomerDailySpend, CustomerDailySpend.Key> {
+
+    @Query("select coalesce(sum(d.amount), 0) from CustomerDailySpend d " +
+            "where d.id.customerId = :customerId and d.id.day >= :since")
+    double sumSince(@Param("customerId") Long customerId, @Param("since") LocalDate since);
+
+    @Query("select new com.livecoding.customerservice.dto.TopSpender(d.id.customerId, sum(d.amount)) " +
+            "from CustomerDailySpend d where d.id.day >= :since " +
+            "group by d.id.customerId order by sum(d.amount) desc")
+    List<TopSpender> findTopSpendersSince(@Param("since") LocalDate since, Limit limit);
+
+    @Modifying
+    @Query("delete from CustomerDailySpend d where d.id.day < :before")
+    int deleteOlderThan(@Param("before") LocalDate before);
+}
@@ -1,9 +1,47 @@
 package com.livecoding.customerservice.repository;
 
 import com.livecoding.customerservice.entities.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @RepositoryRestResource
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    /**
+     * Pagination par curseur (keyset) : "id > after" au lieu d'un OFFSET,
+     * stable même si des clients sont ajoutés pendant le parcours.
+     */
+    @RestResource(exported = false)
+    @Query("select c from Customer c where c.id > :after order by c.id")
+    List<Customer> findPage(@Param("after") long after, Limit limit);
+
+    /**
+     * Lecture en flux pour l'export NDJSON. Doit être consommé dans une transaction et fermé après usage.
+     */
+    @RestResource(exported = false)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Customer c order by c.id")
+    Stream<Customer> streamAll();
+
+    // Index unique idx_customer_email
+    @RestResource(exported = false)
+    Optional<Customer> findByEmail(String email);
+
+    @RestResource(exported = false)
+    List<Customer> findByEmailIn(Collection<String> emails);
 }
@@ -0,0 +1,9 @@
+package com.livecoding.customerservice.repository;
+
+import com.livecoding.customerservice.entities.ProjectionOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+@RepositoryRestResource(exported = false)
+public interface ProjectionOffsetRepository extends JpaRepository<ProjectionOffset, String> {
+}
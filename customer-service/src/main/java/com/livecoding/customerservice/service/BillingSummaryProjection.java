@@ -0,0 +1,196 @@
+package com.livecoding.customerservice.service;
+
+import com.livecoding.customerservice.dto.BillingSummary;
+import com.livecoding.customerservice.dto.TopSpender;
+import com.livecoding.customerservice.entities.CustomerBillingSummary;
+import com.livecoding.customerservice.entities.CustomerDailySpend;
+import com.livecoding.customerservice.entities.ProjectionOffset;
+import com.livecoding.customerservice.repository.CustomerBillingSummaryRepository;
+import com.livecoding.customerservice.repository.CustomerDailySpendRepository;
+import com.livecoding.customerservice.repository.ProjectionOffsetRepository;
+import com.livecoding.events.BillCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ========================================
+ * PROJECTION - RÉSUMÉ DE FACTURATION PAR CLIENT
+ * ========================================
+ *
+ * Read model local alimenté par bill-created-topic :
+ * - CustomerBillingSummary : dépense totale, nombre de factures, date de la dernière facture
+ * - CustomerDailySpend     : dépense par jour, pour le cumul glissant sur 30 jours
+ *
+ * Les lectures (GET /api/customers/{id}/billing-summary) ne touchent que quelques lignes
+ * par clé primaire, quel que soit le nombre de factures : plus d'appel à billing-service.
+ *
+ * Un batch est appliqué en une transaction, offsets compris (ProjectionOffset) :
+ * les messages rejoués après un crash ou un rebalance sont ignorés.
+ *
+ * La base H2 est en mémoire : après un redémarrage, BillEventConsumer relit chaque partition
+ * depuis le dernier offset appliqué ici (depuis le début s'il n'y en a pas) pour reconstruire
+ * la projection, quels que soient les offsets commités dans Kafka.
+ */
+@Service
+@Slf4j
+public class BillingSummaryProjection {
+
+    static final int ROLLING_DAYS = 30;
+
+    private final CustomerBillingSummaryRepository summaryRepository;
+    private final CustomerDailySpendRepository dailySpendRepository;
+    private final ProjectionOffsetRepository offsetRepository;
+
+    public BillingSummaryProjection(
+            CustomerBillingSummaryRepository summaryRepository,
+            CustomerDailySpendRepository dailySpendRepository,
+            ProjectionOffsetRepository offsetRepository
+    ) {
+        this.summaryRepository = summaryRepository;
+        this.dailySpendRepository = dailySpendRepository;
+        this.offsetRepository = offsetRepository;
+    }
+
+    /**
+     * Applique un batch d'événements. Les lectures/écritures sont regroupées :
+     * une requête par table, quelle que soit la taille du batch.
+     */
+    @Transactional
+    public void apply(List<ConsumerRecord<String, BillCreatedEvent>> records) {
+        Map<String, ProjectionOffset> offsets = new HashMap<>();
+        offsetRepository.findAllById(records.stream().map(BillingSummaryProjection::topicPartition).distinct().toList())
+                .forEach(offset -> offsets.put(offset.getTopicPartition(), offset));
+
+        Map<Long, CustomerBillingSummary> deltas = new HashMap<>();
+        Map<CustomerDailySpend.Key, Double> dailyDeltas = new HashMap<>();
+        int skipped = 0;
+
+        for (ConsumerRecord<String, BillCreatedEvent> record : records) {
+            ProjectionOffset offset = offsets.computeIfAbsent(topicPartition(record), key -> new ProjectionOffset(key, -1));
+            if (record.offset() <= offset.getLastOffset()) {
+                skipped++;
+                continue;
+            }
+            offset.setLastOffset(record.offset());
+
+            BillCreatedEvent event = record.value();
+            if (event == null || event.getCustomerId() == null) {
+                continue;
+            }
+            Date billingDate = event.getBillingDate() != null ? event.getBillingDate() : new Date(record.timestamp());
+            CustomerBillingSummary delta = deltas.computeIfAbsent(event.getCustomerId(),
+                    id -> CustomerBillingSummary.builder().customerId(id).build());
+            delta.setLifetimeSpend(delta.getLifetimeSpend() + event.getTotalAmount());
+            delta.setBillCount(delta.getBillCount() + 1);
+            delta.setLastBillDate(latest(delta.getLastBillDate(), billingDate));
+
+            dailyDeltas.merge(new CustomerDailySpend.Key(event.getCustomerId(), dayOf(billingDate)),
+                    event.getTotalAmount(), Double::sum);
+        }
+
+        Map<Long, CustomerBillingSummary> summaries = summaryRepository.findAllById(deltas.keySet()).stream()
+                .collect(Collectors.toMap(CustomerBillingSummary::getCustomerId, Function.identity()));
+        deltas.forEach((customerId, delta) -> {
+            CustomerBillingSummary summary = summaries.computeIfAbsent(customerId,
+                    id -> CustomerBillingSummary.builder().customerId(id).build());
+            summary.setLifetimeSpend(summary.getLifetimeSpend() + delta.getLifetimeSpend());
+            summary.setBillCount(summary.getBillCount() + delta.getBillCount());
+            summary.setLastBillDate(latest(summary.getLastBillDate(), delta.getLastBillDate()));
+        });
+
+        Map<CustomerDailySpend.Key, CustomerDailySpend> days = dailySpendRepository.findAllById(dailyDeltas.keySet()).stream()
+                .collect(Collectors.toMap(CustomerDailySpend::getId, Function.identity()));
+        dailyDeltas.forEach((key, amount) -> {
+            CustomerDailySpend day = days.computeIfAbsent(key, k -> new CustomerDailySpend(k, 0));
+            day.setAmount(day.getAmount() + amount);
+        });
+
+        summaryRepository.saveAll(summaries.values());
+        dailySpendRepository.saveAll(days.values());
+        offsetRepository.saveAll(offsets.values());
+
+        if (skipped > 0) {
+            log.info("🔁 Projection: {} événement(s) déjà appliqué(s) ignoré(s)", skipped);
+        }
+    }
+
+    /**
+     * Dernier offset appliqué par partition ; une partition absente n'a jamais été projetée.
+     */
+    @Transactional(readOnly = true)
+    public Map<TopicPartition, Long> lastAppliedOffsets(Collection<TopicPartition> partitions) {
+        Map<String, TopicPartition> byKey = partitions.stream()
+                .collect(Collectors.toMap(BillingSummaryProjection::offsetKey, Function.identity()));
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        offsetRepository.findAllById(byKey.keySet())
+                .forEach(offset -> offsets.put(byKey.get(offset.getTopicPartition()), offset.getLastOffset()));
+        return offsets;
+    }
+
+    @Transactional(readOnly = true)
+    public BillingSummary getSummary(Long customerId) {
+        double last30Days = dailySpendRepository.sumSince(customerId, rollingWindowStart());
+        return summaryRepository.findById(customerId)
+                .map(summary -> new BillingSummary(customerId, summary.getLifetimeSpend(),
+                        summary.getBillCount(), summary.getLastBillDate(), last30Days))
+                .orElseGet(() -> new BillingSummary(customerId, 0, 0, null, 0));
+    }
+
+    /**
+     * @param rolling true : classement sur les 30 derniers jours, false : depuis toujours
+     */
+    @Transactional(readOnly = true)
+    public List<TopSpender> getTopSpenders(int limit, boolean rolling) {
+        if (rolling) {
+            return dailySpendRepository.findTopSpendersSince(rollingWindowStart(), Limit.of(limit));
+        }
+        return summaryRepository.findByOrderByLifetimeSpendDesc(Limit.of(limit)).stream()
+                .map(summary -> new TopSpender(summary.getCustomerId(), summary.getLifetimeSpend()))
+                .toList();
+    }
+
+    /**
+     * Les journées sorties de la fenêtre glissante ne servent plus : purge quotidienne.
+     */
+    @Scheduled(cron = "${customer.projection.purge-cron:0 15 0 * * *}", zone = "UTC")
+    @Transactional
+    public void purgeExpiredDays() {
+        int deleted = dailySpendRepository.deleteOlderThan(rollingWindowStart());
+        log.info("🧹 Projection: {} journée(s) hors fenêtre de {} jours supprimée(s)", deleted, ROLLING_DAYS);
+    }
+
+    private static LocalDate rollingWindowStart() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(ROLLING_DAYS - 1);
+    }
+
+    private static LocalDate dayOf(Date date) {
+        return date.toInstant().atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private static Date latest(Date current, Date candidate) {
+        return current == null || candidate.after(current) ? candidate : current;
+    }
+
+    private static String topicPartition(ConsumerRecord<?, ?> record) {
+        return record.topic() + "-" + record.partition();
+    }
+
+    private static String offsetKey(TopicPartition partition) {
+        return partition.topic() + "-" + partition.partition();
+    }
+}
@@ -0,0 +1,108 @@
+package com.livecoding.customerservice.service;
+
+import com.livecoding.customerservice.dto.BulkUpsertResult;
+import com.livecoding.customerservice.dto.CustomerPage;
+import com.livecoding.customerservice.entities.Customer;
+import com.livecoding.customerservice.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Listing paginé / en flux et upsert groupé des clients.
+ */
+@Service
+public class CustomerService {
+
+    private final CustomerRepository customerRepository;
+    private final int upsertChunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CustomerService(
+            CustomerRepository customerRepository,
+            @Value("${customer.bulk.chunk-size:500}") int upsertChunkSize
+    ) {
+        this.customerRepository = customerRepository;
+        this.upsertChunkSize = upsertChunkSize;
+    }
+
+    /**
+     * Page de clients par curseur (keyset) : after = dernier id de la page précédente.
+     */
+    public CustomerPage getPage(Long after, int limit) {
+        List<Customer> items = customerRepository.findPage(after == null ? 0L : after, Limit.of(limit));
+        Long nextCursor = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return new CustomerPage(items, nextCursor);
+    }
+
+    /**
+     * Parcourt tous les clients sans les garder en mémoire (détachés après transmission).
+     */
+    @Transactional(readOnly = true)
+    public void streamCustomers(Consumer<Customer> consumer) {
+        try (Stream<Customer> customers = customerRepository.streamAll()) {
+            customers.forEach(customer -> {
+                consumer.accept(customer);
+                entityManager.detach(customer);
+            });
+        }
+    }
+
+    /**
+     * Crée ou met à jour (clé = email, le dernier doublon l'emporte) par lots :
+     * une requête "email in (...)" par lot, puis INSERT / UPDATE regroupés en batch JDBC.
+     */
+    @Transactional
+    public BulkUpsertResult upsert(List<Customer> customers) {
+        Map<String, Customer> byEmail = new LinkedHashMap<>();
+        for (Customer customer : customers) {
+            if (customer.getEmail() == null || customer.getEmail().isBlank()) {
+                throw new IllegalArgumentException("Customer email is required for bulk upsert");
+            }
+            byEmail.put(customer.getEmail(), customer);
+        }
+
+        List<Customer> unique = new ArrayList<>(byEmail.values());
+        int created = 0;
+        int updated = 0;
+        for (int from = 0; from < unique.size(); from += upsertChunkSize) {
+            List<Customer> chunk = unique.subList(from, Math.min(from + upsertChunkSize, unique.size()));
+            Map<String, Customer> existing = customerRepository
+                    .findByEmailIn(chunk.stream().map(Customer::getEmail).toList()).stream()
+                    .collect(Collectors.toMap(Customer::getEmail, Function.identity()));
+
+            List<Customer> toInsert = new ArrayList<>();
+            for (Customer incoming : chunk) {
+                Customer current = existing.get(incoming.getEmail());
+                if (current == null) {
+                    toInsert.add(Customer.builder().name(incoming.getName()).email(incoming.getEmail()).build());
+                    created++;
+                } else if (!Objects.equals(incoming.getName(), current.getName())) {
+                    // Entité gérée : l'UPDATE part au flush (dirty checking)
+                    current.setName(incoming.getName());
+                    updated++;
+                }
+            }
+            customerRepository.saveAll(toInsert);
+            // Envoi des batchs puis libération du contexte de persistance du lot
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return new BulkUpsertResult(created, updated);
+    }
+}
@@ -0,0 +1,24 @@
+package com.livecoding.customerservice.web;
+
+import com.livecoding.customerservice.kafka.BillEventDltReplayer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/bill-events")
+public class BillEventAdminController {
+
+    private static final int MAX_REPLAY = 10_000;
+
+    @Autowired
+    private BillEventDltReplayer billEventDltReplayer;
+
+    // Renvoie jusqu'à "max" événements du dead letter topic dans le circuit de traitement
+    @PostMapping("/dlt/replay")
+    public Map<String, Integer> replayDeadLetters(@RequestParam(defaultValue = "1000") int max) {
+        int replayed = billEventDltReplayer.replay(Math.max(1, Math.min(max, MAX_REPLAY)));
+        return Map.of("replayed", replayed);
+    }
+}
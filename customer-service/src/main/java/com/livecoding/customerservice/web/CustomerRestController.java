@@ -1,11 +1,25 @@
 package com.livecoding.customerservice.web;
 
+import com.livecoding.customerservice.dto.BillingSummary;
+import com.livecoding.customerservice.dto.BulkUpsertResult;
+import com.livecoding.customerservice.dto.CustomerPage;
+import com.livecoding.customerservice.dto.TopSpender;
 import com.livecoding.customerservice.entities.Customer;
 import com.livecoding.customerservice.repository.CustomerRepository;
+import com.livecoding.customerservice.service.BillingSummaryProjection;
+import com.livecoding.customerservice.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -14,13 +28,108 @@ public class CustomerRestController {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private BillingSummaryProjection billingSummaryProjection;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private static final int MAX_TOP_SPENDERS = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BULK_SIZE = 10_000;
+    private static final int FLUSH_EVERY = 500;
+    private static final String NDJSON = "application/x-ndjson";
+
+    // Table complète en mémoire : préférer /page ou /stream pour les gros volumes
     @GetMapping
     public List<Customer> getAllCustomers() {
         return customerRepository.findAll();
     }
 
+    /**
+     * Pagination par curseur : GET /api/customers/page?after=42&limit=500
+     */
+    @GetMapping("/page")
+    public CustomerPage getCustomerPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        return customerService.getPage(after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Export complet en NDJSON (un client JSON par ligne), écrit au fil de la lecture.
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamCustomers() {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            customerService.streamCustomers(customer -> {
+                try {
+                    out.write(jsonMapper.writeValueAsBytes(customer));
+                    out.write('\n');
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // Index unique sur l'email : une seule ligne lue
+    @GetMapping("/by-email")
+    public ResponseEntity<Customer> getCustomerByEmail(@RequestParam String email) {
+        return customerRepository.findByEmail(email)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Upsert groupé (clé = email) : INSERT / UPDATE en batch JDBC, une transaction.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkUpsertResult> upsertCustomers(@RequestBody List<Customer> customers) {
+        if (customers.size() > MAX_BULK_SIZE) {
+            return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).build();
+        }
+        try {
+            return ResponseEntity.ok(customerService.upsert(customers));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public Customer getCustomerById(@PathVariable Long id) {
         return customerRepository.findById(id).orElse(null);
     }
+
+    // Lookup groupé: un seul aller-retour (et une seule requête SQL) pour N clients
+    @GetMapping("/bulk")
+    public List<Customer> getCustomersByIds(@RequestParam Set<Long> ids) {
+        return customerRepository.findAllById(ids);
+    }
+
+    // Read model local (alimenté par bill-created-topic) : pas d'appel à billing-service
+    @GetMapping("/{id}/billing-summary")
+    public BillingSummary getBillingSummary(@PathVariable Long id) {
+        return billingSummaryProjection.getSummary(id);
+    }
+
+    // period=lifetime (défaut) ou 30d
+    @GetMapping("/top-spenders")
+    public List<TopSpender> getTopSpenders(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "lifetime") String period
+    ) {
+        int size = Math.max(1, Math.min(limit, MAX_TOP_SPENDERS));
+        return billingSummaryProjection.getTopSpenders(size, "30d".equals(period));
+    }
 }
@@ -0,0 +1,144 @@
+package com.livecoding.customerservice.kafka;
+
+import com.livecoding.customerservice.service.BillingSummaryProjection;
+import com.livecoding.events.BillCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BillEventConsumerTest {
+
+    private static final String TOPIC = "bill-created-topic";
+
+    private final BillingSummaryProjection projection = mock(BillingSummaryProjection.class);
+    private final BillEventProcessor processor = mock(BillEventProcessor.class);
+    private final KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+    private final ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+
+    private BillEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new BillEventConsumer(projection, processor, registry, new SimpleMeterRegistry(), 2_000, 50, 500, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.shutdown();
+    }
+
+    @Test
+    void emptyProjectionIsRebuiltFromTheBeginningOfEachPartition() {
+        TopicPartition p0 = new TopicPartition(TOPIC, 0);
+        TopicPartition p1 = new TopicPartition(TOPIC, 1);
+        when(projection.lastAppliedOffsets(Map.of(p0, 120L, p1, 40L).keySet())).thenReturn(Map.of());
+
+        consumer.onPartitionsAssigned(Map.of(p0, 120L, p1, 40L), callback);
+
+        verify(callback).seekToBeginning(TOPIC, 0);
+        verify(callback).seekToBeginning(TOPIC, 1);
+        verify(callback, never()).seek(anyString(), anyInt(), anyLong());
+    }
+
+    @Test
+    void partitionResumesAfterTheLastAppliedOffset() {
+        TopicPartition behind = new TopicPartition(TOPIC, 0);
+        TopicPartition upToDate = new TopicPartition(TOPIC, 1);
+        Map<TopicPartition, Long> assignments = Map.of(behind, 120L, upToDate, 40L);
+        when(projection.lastAppliedOffsets(assignments.keySet())).thenReturn(Map.of(behind, 99L, upToDate, 39L));
+
+        consumer.onPartitionsAssigned(assignments, callback);
+
+        verify(callback).seek(TOPIC, 0, 100L);
+        verify(callback, never()).seek(TOPIC, 1, 40L);
+        verify(callback, never()).seekToBeginning(anyString(), anyInt());
+    }
+
+    @Test
+    void replayedEventsOnlyRebuildTheProjection() {
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        when(projection.lastAppliedOffsets(Map.of(partition, 2L).keySet())).thenReturn(Map.of());
+        consumer.onPartitionsAssigned(Map.of(partition, 2L), callback);
+
+        List<ConsumerRecord<String, BillCreatedEvent>> records = List.of(record(0), record(1), record(2), record(3));
+        consumer.consumeBillCreatedEvents(records, mock(Acknowledgment.class), mock(Consumer.class));
+
+        verify(projection).apply(records);
+        // Offsets 0 et 1 étaient déjà commités avant le redémarrage
+        verify(processor, times(2)).process(any(BillCreatedEvent.class));
+        verify(processor).process(records.get(2).value());
+        verify(processor).process(records.get(3).value());
+    }
+
+    @Test
+    void projectionFailureRedeliversTheWholeBatchInsteadOfRecoveringIt() {
+        List<ConsumerRecord<String, BillCreatedEvent>> records = List.of(record(0), record(1));
+        doThrow(new IllegalStateException("H2 indisponible")).when(projection).apply(records);
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        consumer.consumeBillCreatedEvents(records, acknowledgment, mock(Consumer.class));
+
+        // Ni BatchListenerFailedException (retry topic) ni commit : le batch est relu après le délai
+        verify(acknowledgment).nack(Duration.ofMillis(1_000));
+        verify(acknowledgment, never()).acknowledge();
+        verify(processor, never()).process(any(BillCreatedEvent.class));
+    }
+
+    @Test
+    void partitionIsPausedBeforeTheNextPollWhenTheBacklogWouldMakeItSlow() {
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(registry.getListenerContainer(BillEventConsumer.LISTENER_ID)).thenReturn(container);
+        Consumer<?, ?> kafkaConsumer = mock(Consumer.class);
+        when(kafkaConsumer.currentLag(partition)).thenReturn(OptionalLong.of(10_000));
+        // ~5 ms par événement : batch de 4 rapide (~20 ms), mais 500 en attente (~2,5 s > 2 s)
+        doAnswer(invocation -> {
+            Thread.sleep(5);
+            return null;
+        }).when(processor).process(any(BillCreatedEvent.class));
+
+        consumer.consumeBillCreatedEvents(List.of(record(0), record(1), record(2), record(3)),
+                mock(Acknowledgment.class), kafkaConsumer);
+
+        verify(container).pausePartition(partition);
+        verify(container, timeout(2_000)).resumePartition(partition);
+        assertEquals(PartitionBackpressure.State.RUNNING, consumer.backpressure(partition).state());
+    }
+
+    @Test
+    void caughtUpPartitionIsNotPaused() {
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(registry.getListenerContainer(BillEventConsumer.LISTENER_ID)).thenReturn(container);
+        Consumer<?, ?> kafkaConsumer = mock(Consumer.class);
+        when(kafkaConsumer.currentLag(partition)).thenReturn(OptionalLong.of(0));
+
+        consumer.consumeBillCreatedEvents(List.of(record(0), record(1)), mock(Acknowledgment.class), kafkaConsumer);
+
+        verify(container, never()).pausePartition(any());
+    }
+
+    private static ConsumerRecord<String, BillCreatedEvent> record(long offset) {
+        BillCreatedEvent event = BillCreatedEvent.builder().billId(offset).customerId(1L).totalAmount(10).build();
+        return new ConsumerRecord<>(TOPIC, 0, offset, String.valueOf(offset), event);
+    }
+}
@@ -0,0 +1,56 @@
+package com.livecoding.customerservice.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionBackpressureTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Prochain batch lent au-delà de 2 s, 500 événements par poll au plus
+    private final PartitionBackpressure backpressure = new PartitionBackpressure(2_000 * MS, 500);
+
+    @Test
+    void fastBatchWithABacklogThatWouldBeSlowPausesBeforeTheNextPoll() {
+        // 100 événements en 500 ms (5 ms chacun) : 500 en attente prendraient 2,5 s
+        assertTrue(backpressure.afterBatch(100, 500 * MS, 10_000));
+        assertEquals(PartitionBackpressure.State.PAUSED, backpressure.state());
+    }
+
+    @Test
+    void slowCostWithoutBacklogDoesNotPause() {
+        assertFalse(backpressure.afterBatch(100, 500 * MS, 50));
+        assertFalse(backpressure.afterBatch(100, 500 * MS, 0));
+        assertEquals(PartitionBackpressure.State.RUNNING, backpressure.state());
+    }
+
+    @Test
+    void unknownLagAssumesAFullPoll() {
+        assertTrue(backpressure.afterBatch(10, 50 * MS, -1));
+    }
+
+    @Test
+    void pausedPartitionIsNotPausedTwiceAndResumesToRunning() {
+        assertTrue(backpressure.afterBatch(100, 500 * MS, 10_000));
+        assertFalse(backpressure.afterBatch(100, 500 * MS, 10_000));
+
+        backpressure.resumed();
+
+        assertEquals(PartitionBackpressure.State.RUNNING, backpressure.state());
+    }
+
+    @Test
+    void batchAfterResumeMeasuresTheDownstreamAgain() {
+        assertTrue(backpressure.afterBatch(100, 500 * MS, 10_000));
+        backpressure.resumed();
+
+        // Le traitement aval a récupéré (0,1 ms par événement) : la moyenne baisse, plus de pause
+        for (int i = 0; i < 10; i++) {
+            assertFalse(backpressure.afterBatch(500, 50 * MS, 10_000));
+        }
+        assertTrue(backpressure.predictedNextBatchNanos(10_000) < 2_000 * MS);
+    }
+}
@@ -1,9 +1,16 @@
 package com.livecoding.gateway;
 
+import com.livecoding.gateway.filter.CoalescingProperties;
+import com.livecoding.gateway.filter.RateLimitProperties;
+import com.livecoding.gateway.filter.ResponseCacheProperties;
+import com.livecoding.gateway.loadbalancer.LoadBalancingProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties({ResponseCacheProperties.class, CoalescingProperties.class, RateLimitProperties.class,
+		LoadBalancingProperties.class})
 public class GatewayApplication {
 
 	public static void main(String[] args) {
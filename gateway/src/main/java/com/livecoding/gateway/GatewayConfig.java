@@ -5,20 +5,68 @@ import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Set;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+
+/**
+ * Routes du gateway, chacune avec son timeout et son circuit breaker (resilience4j) :
+ * un service lent ou en panne ne bloque que sa route, les autres restent disponibles.
+ * Circuit ouvert, timeout ou 502/503/504 : réponse 503 immédiate via {@link FallbackController}.
+ */
 @Configuration
 public class GatewayConfig {
 
+    // Réponses 5xx "service indisponible" comptées comme des échecs par le circuit breaker
+    private static final Set<String> UNAVAILABLE = Set.of("502", "503", "504");
+
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
         return builder.routes()
                 .route("customers-route", r -> r
                         .path("/customers/**")
+                        .filters(f -> f.circuitBreaker(c -> c
+                                .setName("customer-service")
+                                .setFallbackUri("forward:/fallback/customer-service")
+                                .setStatusCodes(UNAVAILABLE)))
+                        .metadata(CONNECT_TIMEOUT_ATTR, 500)
+                        .metadata(RESPONSE_TIMEOUT_ATTR, 2000)
                         .uri("lb://customer-service"))
                 .route("products-route", r -> r
                         .path("/products/**")
+                        .filters(f -> f.circuitBreaker(c -> c
+                                .setName("inventory-service")
+                                .setFallbackUri("forward:/fallback/inventory-service")
+                                .setStatusCodes(UNAVAILABLE)))
+                        .metadata(CONNECT_TIMEOUT_ATTR, 500)
+                        .metadata(RESPONSE_TIMEOUT_ATTR, 2000)
                         .uri("lb://inventory-service"))
+                // Recherche typeahead d'inventory-service (index en mémoire), au lieu du catalogue complet
+                .route("products-search-route", r -> r
+                        .path("/api/products/search")
+                        .filters(f -> f.circuitBreaker(c -> c
+                                .setName("inventory-service")
+                                .setFallbackUri("forward:/fallback/inventory-service")
+                                .setStatusCodes(UNAVAILABLE)))
+                        .metadata(CONNECT_TIMEOUT_ATTR, 500)
+                        .metadata(RESPONSE_TIMEOUT_ATTR, 500)
+                        .uri("lb://inventory-service"))
+                // Export NDJSON : peut durer plusieurs minutes, ni timeout de réponse ni circuit breaker
+                .route("billing-stream-route", r -> r
+                        .order(-1)
+                        .path("/bills/stream")
+                        .metadata(CONNECT_TIMEOUT_ATTR, 500)
+                        .metadata(RESPONSE_TIMEOUT_ATTR, -1)
+                        .uri("lb://billing-service"))
                 .route("billing-route", r -> r
                         .path("/bills/**")
+                        .filters(f -> f.circuitBreaker(c -> c
+                                .setName("billing-service")
+                                .setFallbackUri("forward:/fallback/billing-service")
+                                .setStatusCodes(UNAVAILABLE)))
+                        .metadata(CONNECT_TIMEOUT_ATTR, 500)
+                        .metadata(RESPONSE_TIMEOUT_ATTR, 5000)
                         .uri("lb://billing-service"))
                 .build();
     }
@@ -0,0 +1,67 @@
+package com.livecoding.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Lecture bornée d'un corps de réponse, pour les filtres qui le mémorisent
+ * ({@link ResponseCacheFilter}, {@link RequestCoalescingFilter}).
+ *
+ * Comme DataBufferUtils.join(body, maxBytes), on ne garde jamais plus de maxBytes en mémoire,
+ * même quand le Content-Length est inconnu (réponse chunked). Mais au dépassement, les buffers
+ * déjà lus ne sont pas perdus : ils sont retransmis avec le reste du corps (pass-through).
+ */
+final class BoundedBody {
+
+    private BoundedBody() {
+    }
+
+    /**
+     * @param whole    corps complet (au plus maxBytes octets)
+     * @param overflow corps trop gros, retransmis tel quel (buffers déjà lus puis reste du flux)
+     */
+    static Mono<Void> join(Publisher<? extends DataBuffer> body, long maxBytes,
+                           Function<byte[], Mono<Void>> whole, Function<Flux<DataBuffer>, Mono<Void>> overflow) {
+        // Un seul groupe tant que le total reste <= maxBytes ; émis plus tôt dès qu'il le dépasse
+        Flux<List<DataBuffer>> groups = Flux.defer(() -> {
+            long[] size = {0};
+            return Flux.<DataBuffer>from(body).bufferUntil(buffer -> (size[0] += buffer.readableByteCount()) > maxBytes);
+        });
+
+        return groups.switchOnFirst((first, rest) -> {
+            List<DataBuffer> head = first.hasValue() ? first.get() : List.of();
+            if (size(head) > maxBytes) {
+                return overflow.apply(rest.concatMapIterable(buffers -> buffers));
+            }
+            return rest.concatMapIterable(buffers -> buffers)
+                    .collectList()
+                    .flatMap(buffers -> whole.apply(toBytes(buffers)));
+        }).then();
+    }
+
+    private static long size(List<DataBuffer> buffers) {
+        long size = 0;
+        for (DataBuffer buffer : buffers) {
+            size += buffer.readableByteCount();
+        }
+        return size;
+    }
+
+    private static byte[] toBytes(List<DataBuffer> buffers) {
+        byte[] bytes = new byte[(int) size(buffers)];
+        int position = 0;
+        for (DataBuffer buffer : buffers) {
+            int length = buffer.readableByteCount();
+            buffer.read(bytes, position, length);
+            position += length;
+            DataBufferUtils.release(buffer);
+        }
+        return bytes;
+    }
+}
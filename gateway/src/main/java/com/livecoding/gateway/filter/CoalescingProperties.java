@@ -0,0 +1,64 @@
+package com.livecoding.gateway.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Configuration de {@link RequestCoalescingFilter} (gateway.coalescing.*).
+ */
+@ConfigurationProperties(prefix = "gateway.coalescing")
+public class CoalescingProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Ids des routes dont les GET identiques simultanés sont fusionnés.
+     */
+    private Set<String> routes = new LinkedHashSet<>();
+
+    /**
+     * Attente maximale de la réponse partagée ; au-delà la requête part seule vers le service.
+     */
+    private Duration maxWait = Duration.ofSeconds(2);
+
+    /**
+     * Réponses plus grosses : non partagées (les requêtes en attente appellent le service).
+     */
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Set<String> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Set<String> routes) {
+        this.routes = routes;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public DataSize getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public void setMaxBodySize(DataSize maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+}
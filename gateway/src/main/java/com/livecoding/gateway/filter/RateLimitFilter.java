@@ -0,0 +1,144 @@
+package com.livecoding.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ========================================
+ * RATE LIMITING LOCAL (TOKEN BUCKET)
+ * ========================================
+ *
+ * Un bucket par (règle, client), en mémoire, sans Redis ni verrou (voir {@link TokenBucket}).
+ * Les règles (gateway.rate-limit.rules) ciblent une route, des méthodes et un chemin :
+ * ex. POST /bills/generate-all limité à 1 requête par minute et par client.
+ *
+ * - Client = adresse IP, jamais un header fourni par le client : adresse de la connexion, ou
+ *   adresse ajoutée à X-Forwarded-For par le dernier proxy de confiance (gateway.rate-limit.trusted-proxies)
+ * - Refus : 429 + Retry-After (secondes), le service n'est pas appelé
+ * - Chaque instance du gateway a ses propres buckets : limite effective = limite x instances
+ *
+ * Métriques : gateway.ratelimit.requests{rule, result=allowed|rejected}
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    // Premier des filtres du gateway : une requête refusée ne coûte rien en aval
+    public static final int ORDER = ResponseCacheFilter.ORDER - 1;
+
+    private final RateLimitProperties properties;
+    private final List<CompiledRule> rules;
+    private final Cache<String, TokenBucket> buckets;
+    private final RemoteAddressResolver clientAddress;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rules = properties.getRules().stream()
+                .map(rule -> new CompiledRule(rule,
+                        rule.getPath() == null ? null : PathPatternParser.defaultInstance.parse(rule.getPath()),
+                        counter(meterRegistry, rule, "allowed"),
+                        counter(meterRegistry, rule, "rejected")))
+                .toList();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+        this.clientAddress = properties.getTrustedProxies() > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(properties.getTrustedProxies())
+                : new RemoteAddressResolver() {
+                };
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        CompiledRule rule = properties.isEnabled() && route != null ? match(route.getId(), exchange.getRequest()) : null;
+        if (rule == null) {
+            return chain.filter(exchange);
+        }
+
+        RateLimitProperties.Rule config = rule.config();
+        TokenBucket bucket = buckets.get(config.getName() + " " + clientId(exchange),
+                key -> new TokenBucket(config.getCapacity(), config.getRefillPerSecond(), System.nanoTime()));
+        long now = System.nanoTime();
+        long waitNanos = bucket.tryConsume(now);
+
+        ServerHttpResponse response = exchange.getResponse();
+        if (waitNanos > 0) {
+            rule.rejected().increment();
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)))));
+            response.getHeaders().set("X-RateLimit-Remaining", "0");
+            return response.setComplete();
+        }
+        rule.allowed().increment();
+        response.getHeaders().set("X-RateLimit-Remaining", String.valueOf(bucket.remaining(now)));
+        return chain.filter(exchange);
+    }
+
+    private CompiledRule match(String routeId, ServerHttpRequest request) {
+        PathContainer path = null;
+        for (CompiledRule rule : rules) {
+            RateLimitProperties.Rule config = rule.config();
+            if (!routeId.equals(config.getRoute())) {
+                continue;
+            }
+            if (!config.getMethods().isEmpty() && !config.getMethods().contains(request.getMethod().name())) {
+                continue;
+            }
+            if (rule.path() != null) {
+                path = path != null ? path : PathContainer.parsePath(request.getURI().getRawPath());
+                if (!rule.path().matches(path)) {
+                    continue;
+                }
+            }
+            return rule;
+        }
+        return null;
+    }
+
+    private String clientId(ServerWebExchange exchange) {
+        // trusted-proxies = 0 ou X-Forwarded-For absent : adresse de la connexion
+        InetSocketAddress remote = clientAddress.resolve(exchange);
+        return remote == null ? "unknown" : remote.getHostString();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, RateLimitProperties.Rule rule, String result) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .description("Requêtes soumises au rate limiting du gateway")
+                .tag("rule", rule.getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record CompiledRule(RateLimitProperties.Rule config, PathPattern path, Counter allowed, Counter rejected) {
+    }
+}
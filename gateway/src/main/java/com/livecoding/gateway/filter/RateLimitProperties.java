@@ -0,0 +1,194 @@
+package com.livecoding.gateway.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Configuration de {@link RateLimitFilter} (gateway.rate-limit.*).
+ * Validée au démarrage (Validator) : une règle sans capacité ou sans débit empêche le gateway de démarrer.
+ */
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties implements Validator {
+
+    private boolean enabled = true;
+
+    /**
+     * Nombre de proxies de confiance devant le gateway (load balancer, ingress). 0 : le client est
+     * l'adresse de la connexion TCP et X-Forwarded-For est ignoré. N > 0 : le client est la N-ième
+     * adresse de X-Forwarded-For en partant de la droite (celle ajoutée par le dernier proxy de
+     * confiance), les adresses plus à gauche, fournies par le client, ne sont jamais utilisées.
+     */
+    private int trustedProxies = 0;
+
+    /**
+     * Nombre maximal de buckets (route x client) en mémoire.
+     */
+    private long maxBuckets = 100_000;
+
+    /**
+     * Un bucket inutilisé pendant cette durée est oublié (il serait de toute façon plein).
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Règles évaluées dans l'ordre : la première qui correspond s'applique.
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    public static class Rule {
+
+        private String name;
+
+        /**
+         * Id de la route (GatewayConfig / application.yml).
+         */
+        private String route;
+
+        /**
+         * Méthodes HTTP concernées (vide = toutes).
+         */
+        private Set<String> methods = new LinkedHashSet<>();
+
+        /**
+         * Pattern de chemin (ex: /bills/customer/**), vide = toute la route.
+         */
+        private String path;
+
+        /**
+         * Taille du bucket : nombre de requêtes acceptées d'un coup (rafale).
+         */
+        private int capacity;
+
+        /**
+         * Jetons rendus par seconde (débit soutenu).
+         */
+        private double refillPerSecond;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getRoute() {
+            return route;
+        }
+
+        public void setRoute(String route) {
+            this.route = route;
+        }
+
+        public Set<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Set<String> methods) {
+            this.methods = methods;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    public void setTrustedProxies(int trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+
+    public long getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(long maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return RateLimitProperties.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        RateLimitProperties properties = (RateLimitProperties) target;
+        if (properties.getTrustedProxies() < 0) {
+            errors.rejectValue("trustedProxies", "min", "doit être >= 0");
+        }
+        if (properties.getMaxBuckets() <= 0) {
+            errors.rejectValue("maxBuckets", "min", "doit être > 0");
+        }
+        for (int i = 0; i < properties.getRules().size(); i++) {
+            Rule rule = properties.getRules().get(i);
+            String path = "rules[" + i + "].";
+            if (rule.getName() == null || rule.getName().isBlank()) {
+                errors.rejectValue(path + "name", "required", "nom de règle obligatoire");
+            }
+            if (rule.getRoute() == null || rule.getRoute().isBlank()) {
+                errors.rejectValue(path + "route", "required", "id de route obligatoire");
+            }
+            if (rule.getCapacity() <= 0) {
+                errors.rejectValue(path + "capacity", "min", "doit être > 0");
+            }
+            if (!(rule.getRefillPerSecond() > 0)) {
+                errors.rejectValue(path + "refillPerSecond", "min", "doit être > 0");
+            }
+        }
+    }
+}
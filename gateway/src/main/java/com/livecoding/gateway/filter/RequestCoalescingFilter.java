@@ -0,0 +1,220 @@
+package com.livecoding.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ========================================
+ * REQUEST COALESCING (SINGLE-FLIGHT)
+ * ========================================
+ *
+ * Plusieurs GET anonymes identiques (route + chemin + query + Accept + Accept-Encoding) arrivant en même temps :
+ * - le premier (leader) part vers le service
+ * - les suivants (followers) attendent sa réponse et la reçoivent telle quelle (X-Coalesced: true)
+ *
+ * Pendant un pic (thundering herd), le service reçoit ~1 requête par clé au lieu d'une par client.
+ *
+ * Sécurités :
+ * - attente bornée (gateway.coalescing.max-wait) : au-delà, le follower appelle le service lui-même
+ * - réponse 5xx, trop grosse, en streaming ou en échec : non partagée, les followers appellent le service
+ * - requête avec Authorization ou Cookie : jamais fusionnée (la réponse d'un client ne va pas à un autre)
+ * - réponse propre à un client (Set-Cookie, Cache-Control: private / no-store) : non partagée
+ * - la clé est libérée dès la réponse reçue : pas de donnée périmée (le cache est le rôle de
+ *   ResponseCacheFilter, placé avant ce filtre)
+ *
+ * Métriques : gateway.coalescing.requests{role=leader|follower|fallback}, gateway.coalescing.in.flight
+ */
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    // Après ResponseCacheFilter, avant NettyWriteResponseFilter
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final String COALESCED_HEADER = "X-Coalesced";
+    // Jamais rejoués aux followers : propres à la connexion ou au client du leader
+    private static final Set<String> NOT_REPLAYED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase());
+
+    private final CoalescingProperties properties;
+    private final ConcurrentMap<String, Sinks.One<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter fallbacks;
+
+    public RequestCoalescingFilter(CoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.leaders = counter(meterRegistry, "leader");
+        this.followers = counter(meterRegistry, "follower");
+        this.fallbacks = counter(meterRegistry, "fallback");
+        Gauge.builder("gateway.coalescing.in.flight", inFlight, ConcurrentMap::size)
+                .description("Clés GET avec un appel au service en cours")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || route == null || !properties.getRoutes().contains(route.getId())
+                || !HttpMethod.GET.equals(request.getMethod()) || hasCredentials(request)) {
+            return chain.filter(exchange);
+        }
+
+        String key = route.getId() + " " + request.getURI().getRawPath()
+                + (request.getURI().getRawQuery() == null ? "" : "?" + request.getURI().getRawQuery())
+                + " " + request.getHeaders().getFirst(HttpHeaders.ACCEPT)
+                // Réponse gzip (server.compression) jamais partagée avec un client qui ne l'a pas demandée
+                + " " + request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        Sinks.One<SharedResponse> sink = Sinks.one();
+        Sinks.One<SharedResponse> existing = inFlight.putIfAbsent(key, sink);
+
+        if (existing != null) {
+            followers.increment();
+            return existing.asMono()
+                    .timeout(properties.getMaxWait())
+                    .map(Optional::of)
+                    .onErrorResume(e -> Mono.just(Optional.empty()))
+                    .flatMap(shared -> {
+                        if (shared.isPresent()) {
+                            return write(exchange.getResponse(), shared.get());
+                        }
+                        fallbacks.increment();
+                        return chain.filter(exchange);
+                    });
+        }
+
+        leaders.increment();
+        return chain.filter(exchange.mutate().response(new SharingResponseDecorator(exchange.getResponse(), key, sink)).build())
+                .doFinally(signal -> release(key, sink, null));
+    }
+
+    private Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        shared.headers().forEach((name, values) -> response.getHeaders().addAll(name, values));
+        response.getHeaders().set(COALESCED_HEADER, "true");
+        response.getHeaders().setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    /**
+     * Libère la clé puis réveille les followers : avec la réponse, ou sans (ils appellent le service).
+     */
+    private void release(String key, Sinks.One<SharedResponse> sink, SharedResponse response) {
+        inFlight.remove(key, sink);
+        if (response != null) {
+            sink.tryEmitValue(response);
+        } else {
+            sink.tryEmitError(new IllegalStateException("Réponse non partageable pour " + key));
+        }
+    }
+
+    private static boolean hasCredentials(ServerHttpRequest request) {
+        return request.getHeaders().containsHeader(HttpHeaders.AUTHORIZATION)
+                || request.getHeaders().containsHeader(HttpHeaders.COOKIE);
+    }
+
+    private static boolean isPerClient(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return headers.containsHeader(HttpHeaders.SET_COOKIE)
+                || (cacheControl != null && (cacheControl.contains("private") || cacheControl.contains("no-store")));
+    }
+
+    // Exports NDJSON / SSE (ex: GET /bills/stream) : jamais bufferisés
+    private static boolean isStreaming(MediaType contentType) {
+        return contentType != null && (contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                || contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String role) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("GET fusionnés par le gateway")
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réponse du leader, rejouée pour chaque follower.
+     */
+    record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    /**
+     * Capture la réponse du leader pour la partager.
+     */
+    private class SharingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Sinks.One<SharedResponse> sink;
+
+        SharingResponseDecorator(ServerHttpResponse delegate, String key, Sinks.One<SharedResponse> sink) {
+            super(delegate);
+            this.key = key;
+            this.sink = sink;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            long maxBodySize = properties.getMaxBodySize().toBytes();
+            if (status == null || status.is5xxServerError() || getHeaders().getContentLength() > maxBodySize
+                    || isStreaming(getHeaders().getContentType()) || isPerClient(getHeaders())) {
+                release(key, sink, null);
+                return super.writeWith(body);
+            }
+
+            // Content-Length inconnu (chunked) : lecture bornée, pass-through au-delà de max-body-size
+            return BoundedBody.join(body, maxBodySize, bytes -> {
+                HttpHeaders headers = new HttpHeaders();
+                getHeaders().forEach((name, values) -> {
+                    if (!NOT_REPLAYED_HEADERS.contains(name.toLowerCase())) {
+                        headers.addAll(name, values);
+                    }
+                });
+                release(key, sink, new SharedResponse(status, headers, bytes));
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            }, tooLarge -> {
+                release(key, sink, null);
+                return super.writeWith(tooLarge);
+            });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(publisher -> publisher));
+        }
+    }
+}
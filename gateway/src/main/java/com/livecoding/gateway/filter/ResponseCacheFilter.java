@@ -0,0 +1,286 @@
+package com.livecoding.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ========================================
+ * CACHE DES RÉPONSES GET + ETAG
+ * ========================================
+ *
+ * Pour les routes listées dans gateway.response-cache.routes (TTL par route) :
+ * - GET en cache : réponse servie par le gateway, sans appel au service (X-Cache: HIT)
+ * - If-None-Match égal à l'ETag : 304 sans corps
+ * - GET hors cache : réponse 200 mémorisée avec un ETag (SHA-256 du corps) (X-Cache: MISS)
+ * - POST/PUT/PATCH/DELETE sur la route : les entrées de la route sont invalidées
+ * - GET avec Authorization ou Cookie : jamais mis en cache ni servi depuis le cache
+ * - Réponses compressées (server.compression des services) : clé par Accept-Encoding, Content-Encoding
+ *   et Vary rejoués tels quels (un client qui n'a pas demandé gzip ne reçoit jamais de gzip)
+ *
+ * Un GET en cours pendant une écriture ne remet pas en cache l'ancienne réponse : chaque route a un
+ * numéro de génération, incrémenté à chaque invalidation et vérifié avant la mise en cache.
+ *
+ * Cache borné en taille (gateway.response-cache.max-size, éviction W-TinyLFU de Caffeine).
+ * Métriques : cache_gets{cache="gateway-response-cache",result=hit|miss},
+ * gateway.response.cache.hit.ratio, gateway.response.cache.not.modified
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    // Avant NettyWriteResponseFilter : la réponse du service passe par notre décorateur
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+    private static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCacheProperties properties;
+    private final Cache<String, CachedResponse> cache;
+    private final Counter notModified;
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return response.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+                        return response.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway-response-cache");
+        Gauge.builder("gateway.response.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Part des GET servis depuis le cache du gateway")
+                .register(meterRegistry);
+        this.notModified = Counter.builder("gateway.response.cache.not.modified")
+                .description("Réponses 304 (If-None-Match)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Duration ttl = route == null || !properties.isEnabled() ? null : properties.getRoutes().get(route.getId());
+        if (ttl == null) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+        if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return chain.filter(exchange);
+        }
+        if (!HttpMethod.GET.equals(method)) {
+            // Écriture sur le catalogue : on invalide une fois la réponse envoyée
+            return chain.filter(exchange).doFinally(signal -> invalidate(route.getId()));
+        }
+        if (request.getHeaders().containsHeader(HttpHeaders.AUTHORIZATION)
+                || request.getHeaders().containsHeader(HttpHeaders.COOKIE)) {
+            return chain.filter(exchange);
+        }
+
+        String key = cacheKey(route.getId(), request);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return writeCached(exchange, cached);
+        }
+        // Génération lue avant l'appel : une écriture pendant l'appel rend la réponse non cacheable
+        AtomicLong generation = generation(route.getId());
+        return chain.filter(exchange.mutate()
+                .response(new CachingResponseDecorator(exchange, key, ttl, generation, generation.get()))
+                .build());
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.etag());
+        headers.set(CACHE_HEADER, "HIT");
+
+        if (matches(exchange.getRequest(), cached.etag())) {
+            notModified.increment();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        if (cached.contentEncoding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, cached.contentEncoding());
+        }
+        if (!cached.vary().isEmpty()) {
+            headers.addAll(HttpHeaders.VARY, cached.vary());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private void invalidate(String routeId) {
+        generation(routeId).incrementAndGet();
+        String prefix = routeId + " ";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private AtomicLong generation(String routeId) {
+        return generations.computeIfAbsent(routeId, id -> new AtomicLong());
+    }
+
+    /**
+     * Met en cache sauf si la route a été invalidée depuis le début de l'appel. Relecture après le put :
+     * une invalidation concurrente a soit vu l'entrée (et l'a retirée), soit changé la génération.
+     */
+    private void putIfCurrent(String key, CachedResponse response, AtomicLong generation, long expected) {
+        if (generation.get() != expected) {
+            return;
+        }
+        cache.put(key, response);
+        if (generation.get() != expected) {
+            cache.asMap().remove(key, response);
+        }
+    }
+
+    private static String cacheKey(String routeId, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        return routeId + " " + request.getURI().getRawPath()
+                + (query == null ? "" : "?" + query)
+                + " " + request.getHeaders().getFirst(HttpHeaders.ACCEPT)
+                + " " + request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private boolean matches(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        return ifNoneMatch.contains(etag) || ifNoneMatch.contains("*");
+    }
+
+    private static boolean isCacheable(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return !headers.containsHeader(HttpHeaders.SET_COOKIE)
+                && (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")));
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Réponse mémorisée : corps complet (éventuellement compressé), Content-Type, Content-Encoding,
+     * Vary et ETag.
+     */
+    record CachedResponse(byte[] body, MediaType contentType, String contentEncoding, List<String> vary,
+                          String etag, Duration ttl) {
+    }
+
+    /**
+     * Capture le corps des réponses 200 du service pour les mettre en cache.
+     */
+    private class CachingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String key;
+        private final Duration ttl;
+        private final AtomicLong generation;
+        private final long expectedGeneration;
+
+        CachingResponseDecorator(ServerWebExchange exchange, String key, Duration ttl,
+                                 AtomicLong generation, long expectedGeneration) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.ttl = ttl;
+            this.generation = generation;
+            this.expectedGeneration = expectedGeneration;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            long maxEntrySize = properties.getMaxEntrySize().toBytes();
+            if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value() || !isCacheable(headers) || headers.getContentLength() > maxEntrySize) {
+                return super.writeWith(body);
+            }
+
+            // Content-Length inconnu (chunked) : lecture bornée, pass-through au-delà de max-entry-size
+            return BoundedBody.join(body, maxEntrySize, bytes -> {
+                String etag = headers.getETag() != null ? headers.getETag() : etagOf(bytes);
+                headers.setETag(etag);
+                headers.set(CACHE_HEADER, "MISS");
+                List<String> vary = headers.getValuesAsList(HttpHeaders.VARY);
+                putIfCurrent(key, new CachedResponse(bytes, headers.getContentType(),
+                        headers.getFirst(HttpHeaders.CONTENT_ENCODING), List.copyOf(vary), etag, ttl),
+                        generation, expectedGeneration);
+
+                if (matches(exchange.getRequest(), etag)) {
+                    notModified.increment();
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return getDelegate().setComplete();
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            }, tooLarge -> {
+                headers.set(CACHE_HEADER, "MISS");
+                return super.writeWith(tooLarge);
+            });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(publisher -> publisher));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.livecoding.gateway.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration de {@link ResponseCacheFilter} (gateway.response-cache.*).
+ */
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Taille totale maximale des corps en cache (éviction LRU au-delà).
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Réponses plus grosses que cette limite : jamais mises en cache.
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    /**
+     * TTL par id de route. Seules les routes listées ici sont mises en cache.
+     */
+    private Map<String, Duration> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public DataSize getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(DataSize maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public Map<String, Duration> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Duration> routes) {
+        this.routes = routes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.livecoding.gateway.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sans verrou, sous forme GCRA : l'état est une seule date théorique
+ * ("theoretical arrival time", en nanos) mise à jour par compare-and-set.
+ *
+ * Équivalent à un bucket de {@code capacity} jetons rempli à {@code refillPerSecond} :
+ * une requête consomme un jeton, le bucket vide pendant {@code interval} nanos par jeton.
+ */
+class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.intervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstNanos = capacity * intervalNanos;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 si un jeton a été consommé, sinon le délai (nanos) avant le prochain jeton
+     */
+    long tryConsume(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long debt = next - nowNanos;
+            if (debt > burstNanos) {
+                return debt - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Jetons disponibles (indicatif, pour X-RateLimit-Remaining).
+     */
+    long remaining(long nowNanos) {
+        long debt = Math.max(0, theoreticalArrival.get() - nowNanos);
+        return (burstNanos - debt) / intervalNanos;
+    }
+}
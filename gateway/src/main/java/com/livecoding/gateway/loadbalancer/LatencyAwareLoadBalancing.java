@@ -0,0 +1,31 @@
+package com.livecoding.gateway.loadbalancer;
+
+import com.livecoding.loadbalancer.InstanceLatencyStats;
+import com.livecoding.loadbalancer.PeakEwmaLoadBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ========================================
+ * LOAD BALANCING SENSIBLE A LA LATENCE (routes lb://)
+ * ========================================
+ *
+ * Les routes lb:// (GatewayConfig, application.yml, discovery locator) passent par
+ * {@link PeakEwmaLoadBalancer} au lieu du round robin : une réplique lente ne tire plus
+ * le p99 de toutes les requêtes vers le haut.
+ *
+ * - gateway.load-balancing.latency-aware=false : retour au round robin (les stats restent exportées)
+ * - Stats par instance : {@link InstanceLatencyStats}, alimenté par {@link LoadBalancerStatsFilter}
+ * - Balancer créé dans le contexte LoadBalancer de chaque service : {@link PeakEwmaLoadBalancerConfiguration}
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LatencyAwareLoadBalancing {
+
+    @Bean
+    public InstanceLatencyStats instanceLatencyStats(MeterRegistry meterRegistry, LoadBalancingProperties properties) {
+        return new InstanceLatencyStats(meterRegistry, properties.toSettings());
+    }
+}
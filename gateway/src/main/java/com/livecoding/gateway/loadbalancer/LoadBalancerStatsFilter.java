@@ -0,0 +1,61 @@
+package com.livecoding.gateway.loadbalancer;
+
+import com.livecoding.loadbalancer.InstanceLatencyStats;
+import com.livecoding.loadbalancer.PeakEwmaLoadBalancer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * ========================================
+ * MESURE PAR INSTANCE DES REQUETES lb://
+ * ========================================
+ *
+ * Juste après le choix de l'instance (ReactiveLoadBalancerClientFilter) : requêtes en cours,
+ * latence et échecs (erreur, 5xx) de l'instance, lus par {@link PeakEwmaLoadBalancer}.
+ * Un filtre plutôt que LoadBalancerLifecycle : une requête annulée (timeout du circuit breaker,
+ * client parti) n'appelle pas le lifecycle et laisserait l'instance "en cours" pour toujours.
+ * Une annulation compte pour sa latence, pas comme un échec.
+ */
+@Component
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    private final InstanceLatencyStats stats;
+
+    public LoadBalancerStatsFilter(InstanceLatencyStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+        InstanceLatencyStats.Instance instance = stats.instance(lbResponse.getServer());
+        long start = System.nanoTime();
+        instance.requestStarted();
+        return chain.filter(exchange).doFinally(signal -> {
+            long now = System.nanoTime();
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            instance.requestCompleted(now - start, failed, now);
+        });
+    }
+}
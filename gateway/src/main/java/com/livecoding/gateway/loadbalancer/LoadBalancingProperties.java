@@ -0,0 +1,120 @@
+package com.livecoding.gateway.loadbalancer;
+
+import com.livecoding.loadbalancer.InstanceLatencyStats;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration du load balancing des routes lb:// (gateway.load-balancing.*),
+ * voir {@link InstanceLatencyStats}.
+ */
+@ConfigurationProperties(prefix = "gateway.load-balancing")
+public class LoadBalancingProperties {
+
+    /**
+     * true : peak EWMA + power of two choices, false : round robin (les stats restent exportées).
+     */
+    private boolean latencyAware = true;
+
+    /**
+     * Constante de temps de la moyenne : un pic de latence est oublié en quelques decay-time.
+     */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /**
+     * Latence supposée d'une instance jamais appelée (ou inactive depuis longtemps).
+     */
+    private Duration defaultLatency = Duration.ofMillis(20);
+
+    /**
+     * Echecs consécutifs (erreur, 5xx) avant éjection, 0 = jamais.
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * Ejection si latence > facteur x médiane du service (à partir de 3 instances), 0 = jamais.
+     */
+    private double latencyOutlierFactor = 5;
+
+    /**
+     * Durée d'éjection = base-ejection x nombre d'éjections, plafonnée à max-ejection.
+     */
+    private Duration baseEjection = Duration.ofSeconds(30);
+
+    private Duration maxEjection = Duration.ofMinutes(5);
+
+    /**
+     * Part maximale des instances d'un service écartées en même temps.
+     */
+    private double maxEjectedPercent = 50;
+
+    public InstanceLatencyStats.Settings toSettings() {
+        return new InstanceLatencyStats.Settings(decayTime, defaultLatency, failureThreshold,
+                baseEjection, maxEjection, maxEjectedPercent, latencyOutlierFactor);
+    }
+
+    public boolean isLatencyAware() {
+        return latencyAware;
+    }
+
+    public void setLatencyAware(boolean latencyAware) {
+        this.latencyAware = latencyAware;
+    }
+
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(Duration decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    public Duration getDefaultLatency() {
+        return defaultLatency;
+    }
+
+    public void setDefaultLatency(Duration defaultLatency) {
+        this.defaultLatency = defaultLatency;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public double getLatencyOutlierFactor() {
+        return latencyOutlierFactor;
+    }
+
+    public void setLatencyOutlierFactor(double latencyOutlierFactor) {
+        this.latencyOutlierFactor = latencyOutlierFactor;
+    }
+
+    public Duration getBaseEjection() {
+        return baseEjection;
+    }
+
+    public void setBaseEjection(Duration baseEjection) {
+        this.baseEjection = baseEjection;
+    }
+
+    public Duration getMaxEjection() {
+        return maxEjection;
+    }
+
+    public void setMaxEjection(Duration maxEjection) {
+        this.maxEjection = maxEjection;
+    }
+
+    public double getMaxEjectedPercent() {
+        return maxEjectedPercent;
+    }
+
+    public void setMaxEjectedPercent(double maxEjectedPercent) {
+        this.maxEjectedPercent = maxEjectedPercent;
+    }
+}
@@ -0,0 +1,131 @@
+package com.livecoding.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final Route BILLING_ROUTE = Route.async()
+            .id("billing-route")
+            .uri("lb://billing-service")
+            .predicate(exchange -> true)
+            .build();
+
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    };
+
+    @Test
+    void secondRequestOfTheSameClientIsRejectedWithRetryAfter() {
+        RateLimitFilter filter = filter(0);
+
+        MockServerWebExchange first = exchange("10.0.0.1", null);
+        MockServerWebExchange second = exchange("10.0.0.1", null);
+        filter.filter(first, chain).block();
+        filter.filter(second, chain).block();
+
+        assertEquals(1, forwarded.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, second.getResponse().getStatusCode());
+        assertNotNull(second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void clientHeadersDoNotBypassTheLimitWithoutTrustedProxy() {
+        RateLimitFilter filter = filter(0);
+
+        filter.filter(exchange("10.0.0.1", "1.1.1.1", "alice"), chain).block();
+        MockServerWebExchange spoofed = exchange("10.0.0.1", "2.2.2.2", "bob");
+        filter.filter(spoofed, chain).block();
+
+        assertEquals(1, forwarded.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, spoofed.getResponse().getStatusCode());
+    }
+
+    @Test
+    void trustedProxyAddressIdentifiesTheClient() {
+        RateLimitFilter filter = filter(1);
+
+        // Même proxy (10.0.0.1), deux clients : adresse ajoutée par le proxy, à droite de X-Forwarded-For
+        filter.filter(exchange("10.0.0.1", "6.6.6.6, 1.1.1.1"), chain).block();
+        filter.filter(exchange("10.0.0.1", "6.6.6.6, 2.2.2.2"), chain).block();
+        MockServerWebExchange forged = exchange("10.0.0.1", "9.9.9.9, 1.1.1.1");
+        filter.filter(forged, chain).block();
+
+        assertEquals(2, forwarded.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, forged.getResponse().getStatusCode());
+    }
+
+    @Test
+    void rulesWithoutCapacityOrRefillAreRejected() {
+        RateLimitProperties properties = properties(0);
+        properties.getRules().get(0).setCapacity(0);
+        properties.getRules().get(0).setRefillPerSecond(0);
+
+        Errors errors = new BeanPropertyBindingResult(properties, "gateway.rate-limit");
+        properties.validate(properties, errors);
+
+        assertNotNull(errors.getFieldError("rules[0].capacity"));
+        assertNotNull(errors.getFieldError("rules[0].refillPerSecond"));
+
+        RateLimitProperties valid = properties(0);
+        Errors none = new BeanPropertyBindingResult(valid, "gateway.rate-limit");
+        valid.validate(valid, none);
+        assertFalse(none.hasErrors());
+    }
+
+    private static RateLimitFilter filter(int trustedProxies) {
+        return new RateLimitFilter(properties(trustedProxies), new SimpleMeterRegistry());
+    }
+
+    private static RateLimitProperties properties(int trustedProxies) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setName("generate-all");
+        rule.setRoute("billing-route");
+        rule.setMethods(Set.of("POST"));
+        rule.setPath("/bills/generate-all");
+        rule.setCapacity(1);
+        rule.setRefillPerSecond(0.0167);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setTrustedProxies(trustedProxies);
+        properties.setRules(List.of(rule));
+        return properties;
+    }
+
+    private static MockServerWebExchange exchange(String remoteAddress, String forwardedFor) {
+        return exchange(remoteAddress, forwardedFor, null);
+    }
+
+    private static MockServerWebExchange exchange(String remoteAddress, String forwardedFor, String clientId) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.post("/bills/generate-all")
+                .remoteAddress(new InetSocketAddress(remoteAddress, 40000));
+        if (forwardedFor != null) {
+            request.header("X-Forwarded-For", forwardedFor);
+        }
+        if (clientId != null) {
+            request.header("X-Client-Id", clientId);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, BILLING_ROUTE);
+        return exchange;
+    }
+}
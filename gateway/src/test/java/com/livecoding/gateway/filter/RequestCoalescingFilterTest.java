@@ -0,0 +1,179 @@
+package com.livecoding.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescingFilterTest {
+
+    private static final Route PRODUCTS_ROUTE = Route.async()
+            .id("products-route")
+            .uri("lb://inventory-service")
+            .predicate(exchange -> true)
+            .build();
+
+    private final AtomicInteger calls = new AtomicInteger();
+    // La réponse du service n'arrive qu'une fois la porte ouverte : les followers ont le temps d'arriver
+    private final Sinks.Empty<Void> gate = Sinks.empty();
+    private final RequestCoalescingFilter filter = new RequestCoalescingFilter(properties(), new SimpleMeterRegistry());
+
+    @Test
+    void identicalGetsShareTheLeaderResponse() throws Exception {
+        GatewayFilterChain chain = service(new HttpHeaders(), "[\"p1\"]");
+
+        MockServerWebExchange leader = exchange(null);
+        MockServerWebExchange follower = exchange(null);
+        CompletableFuture<Void> first = filter.filter(leader, chain).toFuture();
+        CompletableFuture<Void> second = filter.filter(follower, chain).toFuture();
+        gate.tryEmitEmpty();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, calls.get());
+        assertEquals("true", follower.getResponse().getHeaders().getFirst("X-Coalesced"));
+        assertEquals("[\"p1\"]", follower.getResponse().getBodyAsString().block());
+        assertEquals("[\"p1\"]", leader.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void responsesWithSetCookieAreNotReplayed() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.SET_COOKIE, "SESSION=leader");
+        GatewayFilterChain chain = service(headers, "[\"p1\"]");
+
+        MockServerWebExchange follower = exchange(null);
+        CompletableFuture<Void> first = filter.filter(exchange(null), chain).toFuture();
+        CompletableFuture<Void> second = filter.filter(follower, chain).toFuture();
+        gate.tryEmitEmpty();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        // Le follower a appelé le service lui-même
+        assertEquals(2, calls.get());
+        assertNull(follower.getResponse().getHeaders().getFirst("X-Coalesced"));
+    }
+
+    @Test
+    void credentialedRequestsAreNeverCoalesced() throws Exception {
+        GatewayFilterChain chain = service(new HttpHeaders(), "[\"p1\"]");
+
+        CompletableFuture<Void> alice = filter.filter(exchange("Bearer alice"), chain).toFuture();
+        CompletableFuture<Void> bob = filter.filter(exchange("Bearer bob"), chain).toFuture();
+
+        assertEquals(2, calls.get());
+        gate.tryEmitEmpty();
+        alice.get(5, TimeUnit.SECONDS);
+        bob.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void chunkedBodyAboveTheLimitIsPassedThroughAndNotShared() throws Exception {
+        // 3 x 6 octets, sans Content-Length, pour une limite de 16 octets
+        GatewayFilterChain chain = service(new HttpHeaders(), "[\"p1\",", "\"p2\",", "\"p3\"]");
+
+        MockServerWebExchange leader = exchange(null);
+        MockServerWebExchange follower = exchange(null);
+        CompletableFuture<Void> first = filter.filter(leader, chain).toFuture();
+        CompletableFuture<Void> second = filter.filter(follower, chain).toFuture();
+        gate.tryEmitEmpty();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertEquals("[\"p1\",\"p2\",\"p3\"]", leader.getResponse().getBodyAsString().block());
+        assertEquals(2, calls.get());
+        assertNull(follower.getResponse().getHeaders().getFirst("X-Coalesced"));
+    }
+
+    @Test
+    void gzipLeaderIsNotSharedWithFollowersThatDidNotAcceptGzip() throws Exception {
+        GatewayFilterChain chain = exchange -> {
+            calls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            boolean gzip = exchange.getRequest().getHeaders().containsHeader(HttpHeaders.ACCEPT_ENCODING);
+            return gate.asMono().then(Mono.defer(() -> {
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                if (gzip) {
+                    response.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                }
+                return response.writeWith(Flux.just(buffer(gzip ? "GZIP-BYTES" : "[\"p1\"]")));
+            }));
+        };
+
+        MockServerWebExchange leader = MockServerWebExchange.from(MockServerHttpRequest.get("/products")
+                .accept(MediaType.APPLICATION_JSON).header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        leader.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, PRODUCTS_ROUTE);
+        MockServerWebExchange identity = exchange(null);
+        CompletableFuture<Void> first = filter.filter(leader, chain).toFuture();
+        CompletableFuture<Void> second = filter.filter(identity, chain).toFuture();
+        gate.tryEmitEmpty();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, calls.get());
+        assertNull(identity.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("[\"p1\"]", identity.getResponse().getBodyAsString().block());
+    }
+
+    /**
+     * Service simulé : 200 JSON, écrit en plusieurs buffers une fois la porte ouverte.
+     */
+    private GatewayFilterChain service(HttpHeaders headers, String... chunks) {
+        return exchange -> {
+            calls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            return gate.asMono().then(Mono.defer(() -> {
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                headers.forEach((name, values) -> response.getHeaders().addAll(name, values));
+                return response.writeWith(Flux.fromArray(chunks).map(RequestCoalescingFilterTest::buffer));
+            }));
+        };
+    }
+
+    private static DataBuffer buffer(String chunk) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CoalescingProperties properties() {
+        CoalescingProperties properties = new CoalescingProperties();
+        properties.setRoutes(Set.of("products-route"));
+        properties.setMaxWait(Duration.ofSeconds(5));
+        properties.setMaxBodySize(DataSize.ofBytes(16));
+        return properties;
+    }
+
+    private static MockServerWebExchange exchange(String authorization) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/products")
+                .accept(MediaType.APPLICATION_JSON);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, PRODUCTS_ROUTE);
+        return exchange;
+    }
+}
@@ -0,0 +1,181 @@
+package com.livecoding.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+
+    private static final Route PRODUCTS_ROUTE = Route.async()
+            .id("products-route")
+            .uri("lb://inventory-service")
+            .predicate(exchange -> true)
+            .build();
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(properties(), new SimpleMeterRegistry());
+
+    @Test
+    void secondGetIsServedFromTheCacheWithTheSameEtag() {
+        GatewayFilterChain chain = service(Mono.empty(), "[\"p1\"]");
+
+        MockServerWebExchange miss = get();
+        filter.filter(miss, chain).block();
+        MockServerWebExchange hit = get();
+        filter.filter(hit, chain).block();
+
+        assertEquals(1, calls.get());
+        assertEquals("MISS", miss.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("HIT", hit.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("[\"p1\"]", hit.getResponse().getBodyAsString().block());
+        assertEquals(miss.getResponse().getHeaders().getETag(), hit.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void matchingIfNoneMatchGetsNotModified() {
+        GatewayFilterChain chain = service(Mono.empty(), "[\"p1\"]");
+        MockServerWebExchange miss = get();
+        filter.filter(miss, chain).block();
+
+        MockServerWebExchange revalidation = MockServerWebExchange.from(MockServerHttpRequest.get("/products")
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(miss.getResponse().getHeaders().getETag()));
+        revalidation.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, PRODUCTS_ROUTE);
+        filter.filter(revalidation, chain).block();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getResponse().getStatusCode());
+    }
+
+    @Test
+    void chunkedBodyAboveMaxEntrySizeIsPassedThroughAndNotCached() {
+        // 3 x 6 octets, sans Content-Length, pour une limite de 16 octets
+        GatewayFilterChain chain = service(Mono.empty(), "[\"p1\",", "\"p2\",", "\"p3\"]");
+
+        MockServerWebExchange first = get();
+        filter.filter(first, chain).block();
+        filter.filter(get(), chain).block();
+
+        assertEquals("[\"p1\",\"p2\",\"p3\"]", first.getResponse().getBodyAsString().block());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getInFlightDuringAWriteDoesNotRepopulateTheCache() throws Exception {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        GatewayFilterChain slowRead = service(gate.asMono(), "[\"old\"]");
+
+        // Lecture de l'ancien état, puis écriture terminée avant la fin de la lecture
+        CompletableFuture<Void> read = filter.filter(get(), slowRead).toFuture();
+        MockServerWebExchange write = MockServerWebExchange.from(MockServerHttpRequest.put("/products/1"));
+        write.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, PRODUCTS_ROUTE);
+        filter.filter(write, exchange -> Mono.empty()).block();
+        gate.tryEmitEmpty();
+        read.get(5, TimeUnit.SECONDS);
+
+        MockServerWebExchange next = get();
+        filter.filter(next, service(Mono.empty(), "[\"new\"]")).block();
+
+        assertEquals("MISS", next.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("[\"new\"]", next.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void compressedResponsesAreKeyedByAcceptEncodingAndReplayedWithTheirEncoding() {
+        // Comme server.compression : gzip seulement si le client l'accepte
+        GatewayFilterChain compressing = exchange -> {
+            calls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            boolean gzip = String.valueOf(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING))
+                    .contains("gzip");
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                response.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.writeWith(Flux.just(buffer(gzip ? "GZIP-BYTES" : "[\"p1\"]")));
+        };
+
+        filter.filter(get("gzip, deflate"), compressing).block();
+        MockServerWebExchange identity = get(null);
+        filter.filter(identity, compressing).block();
+        MockServerWebExchange gzipHit = get("gzip, deflate");
+        filter.filter(gzipHit, compressing).block();
+
+        // Client sans Accept-Encoding : jamais le corps gzip du cache
+        assertEquals(2, calls.get());
+        assertEquals("MISS", identity.getResponse().getHeaders().getFirst("X-Cache"));
+        assertNull(identity.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("[\"p1\"]", identity.getResponse().getBodyAsString().block());
+        // HIT gzip : corps compressé rejoué avec son Content-Encoding et son Vary
+        assertEquals("HIT", gzipHit.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("gzip", gzipHit.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), gzipHit.getResponse().getHeaders().getValuesAsList(HttpHeaders.VARY));
+        assertEquals("GZIP-BYTES", gzipHit.getResponse().getBodyAsString().block());
+    }
+
+    /**
+     * Service simulé : 200 JSON sans Content-Length, écrit en plusieurs buffers après le délai.
+     */
+    private GatewayFilterChain service(Mono<Void> delay, String... chunks) {
+        return exchange -> {
+            calls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            return delay.then(Mono.defer(() -> {
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response.writeWith(Flux.fromArray(chunks).map(ResponseCacheFilterTest::buffer));
+            }));
+        };
+    }
+
+    private static DataBuffer buffer(String chunk) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResponseCacheProperties properties() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setMaxEntrySize(DataSize.ofBytes(16));
+        properties.setRoutes(Map.of("products-route", Duration.ofSeconds(30)));
+        return properties;
+    }
+
+    private static MockServerWebExchange get() {
+        return get(null);
+    }
+
+    private static MockServerWebExchange get(String acceptEncoding) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/products")
+                .accept(MediaType.APPLICATION_JSON);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, PRODUCTS_ROUTE);
+        return exchange;
+    }
+}
@@ -0,0 +1,19 @@
+package com.livecoding.inventoryservice.dto;
+
+import com.livecoding.inventoryservice.entities.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Page de résultats de GET /api/products/search (total = nombre de produits correspondants).
+ */
+@Getter
+@AllArgsConstructor
+public class ProductSearchPage {
+    private List<Product> items;
+    private int total;
+    private int page;
+    private int size;
+}
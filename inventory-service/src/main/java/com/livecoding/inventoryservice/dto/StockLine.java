@@ -0,0 +1,18 @@
+package com.livecoding.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Quantité demandée pour un produit (POST /api/products/stock/reservations).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLine {
+    private Long productId;
+    private int quantity;
+}
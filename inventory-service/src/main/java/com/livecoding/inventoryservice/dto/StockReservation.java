@@ -0,0 +1,16 @@
+package com.livecoding.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Réservation de stock à confirmer (commit) ou annuler (release) avant expiresAt (epoch ms).
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    private String reservationId;
+    private long expiresAt;
+}
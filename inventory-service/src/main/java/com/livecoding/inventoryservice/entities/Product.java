@@ -2,11 +2,14 @@ package com.livecoding.inventoryservice.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.*;
 
 @Entity
+@EntityListeners(ProductEntityListener.class)
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -20,4 +23,8 @@ public class Product {
     private String name;
     private double price;
     private int quantity;
+    // Verrou optimiste : un PUT/PATCH chargé avant un flush du StockLedger (update versioned)
+    // échoue au lieu de réécrire l'ancienne quantité
+    @Version
+    private Long version;
 }
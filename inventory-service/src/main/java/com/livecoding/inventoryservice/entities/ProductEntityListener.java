@@ -0,0 +1,82 @@
+package com.livecoding.inventoryservice.entities;
+
+import com.livecoding.events.ProductChangedEvent;
+import com.livecoding.inventoryservice.kafka.ProductEventProducer;
+import com.livecoding.inventoryservice.service.ProductSearchIndex;
+import com.livecoding.inventoryservice.service.StockLedger;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Listener JPA : toute écriture d'un {@link Product} (REST, Spring Data REST, CommandLineRunner...)
+ * déclenche la publication d'un {@link ProductChangedEvent}, resynchronise le {@link StockLedger}
+ * et met à jour le {@link ProductSearchIndex}.
+ * (Le flush du ledger passe par une requête UPDATE directe et ne repasse pas par ce listener.)
+ *
+ * Les callbacks JPA s'exécutent au flush de la session, avant le commit : les effets sont donc
+ * différés après le commit (une mise à jour annulée ne touche ni le ledger, ni l'index, ni Kafka).
+ */
+@Component
+public class ProductEntityListener {
+
+    private final ProductEventProducer productEventProducer;
+    private final StockLedger stockLedger;
+    private final ProductSearchIndex productSearchIndex;
+
+    public ProductEntityListener(ProductEventProducer productEventProducer,
+                                 @Lazy StockLedger stockLedger,
+                                 @Lazy ProductSearchIndex productSearchIndex) {
+        this.productEventProducer = productEventProducer;
+        this.stockLedger = stockLedger;
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Product product) {
+        ProductChangedEvent event = toEvent(product, false);
+        afterCommit(() -> {
+            stockLedger.resync(product.getId());
+            productSearchIndex.index(product);
+            productEventProducer.sendProductChanged(event);
+        });
+    }
+
+    @PostRemove
+    public void onRemoved(Product product) {
+        ProductChangedEvent event = toEvent(product, true);
+        afterCommit(() -> {
+            stockLedger.remove(product.getId());
+            productSearchIndex.remove(product.getId());
+            productEventProducer.sendProductChanged(event);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private ProductChangedEvent toEvent(Product product, boolean deleted) {
+        return ProductChangedEvent.builder()
+                .productId(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .quantity(product.getQuantity())
+                .deleted(deleted)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.livecoding.inventoryservice.kafka;
+
+import com.livecoding.events.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publie un {@link ProductChangedEvent} sur Kafka à chaque changement de produit.
+ *
+ * L'envoi est différé après le commit de la transaction en cours : un consommateur
+ * ne voit jamais un produit qui n'a finalement pas été enregistré.
+ */
+@Service
+@Slf4j
+public class ProductEventProducer {
+
+    private final KafkaTemplate<String, ProductChangedEvent> kafkaTemplate;
+
+    @Value("${kafka.topic.product-changed}")
+    private String topicName;
+
+    public ProductEventProducer(KafkaTemplate<String, ProductChangedEvent> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void sendProductChanged(ProductChangedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    private void send(ProductChangedEvent event) {
+        kafkaTemplate.send(topicName, event.getProductId().toString(), event)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.warn("❌ Publication de ProductChangedEvent impossible (productId={}): {}",
+                                event.getProductId(), error.getMessage());
+                    }
+                });
+    }
+}
@@ -2,8 +2,30 @@ package com.livecoding.inventoryservice.repository;
 
 import com.livecoding.inventoryservice.entities.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
+
+import java.util.Optional;
 
 @RepositoryRestResource
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Décrément relatif (flush du StockLedger) : n'écrase pas un réassort enregistré entre-temps.
+     * "versioned" incrémente la version : une mise à jour chargée avant le flush échoue (verrou optimiste).
+     */
+    @RestResource(exported = false)
+    @Modifying
+    @Query("update versioned Product p set p.quantity = p.quantity - :delta where p.id = :id")
+    int decrementQuantity(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Quantité en base (resync du StockLedger), sans passer par le cache de la session.
+     */
+    @RestResource(exported = false)
+    @Query("select p.quantity from Product p where p.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
 }
@@ -0,0 +1,242 @@
+package com.livecoding.inventoryservice.service;
+
+import com.livecoding.inventoryservice.dto.ProductSearchPage;
+import com.livecoding.inventoryservice.entities.Product;
+import com.livecoding.inventoryservice.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * ========================================
+ * INDEX DE RECHERCHE PRODUITS EN MÉMOIRE (typeahead)
+ * ========================================
+ *
+ * Deux index sur Product.name normalisé (minuscules, sans accents) :
+ * - préfixe : chaque mot du nom dans une ConcurrentSkipListMap, "cha" -> [chaise, chargeur...]
+ * - trigrammes : "abcd" -> {abc, bcd}, pour retrouver un fragment au milieu d'un mot (>= 3 caractères)
+ *
+ * Une recherche ne touche ni la base ni le réseau : quelques microsecondes au lieu de
+ * transférer tout le catalogue au client. Tenu à jour par ProductEntityListener, reconstruit
+ * au démarrage. Lectures sans verrou, écritures sérialisées (rares). La quantité renvoyée est
+ * la dernière enregistrée par l'API (pas le disponible du StockLedger).
+ *
+ * Classement : nom qui commence par la recherche, puis mot qui commence par la recherche,
+ * puis fragment au milieu d'un mot ; à égalité, par nom.
+ */
+@Service
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    // Lettres et chiffres Unicode : les noms non latins (cyrillique, CJK...) sont découpés en mots eux aussi
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{Alnum}]+", Pattern.UNICODE_CHARACTER_CLASS);
+    private static final int GRAM = 3;
+    // Sépare le mot de l'id dans les clés de l'index préfixe ("chaise\u000042")
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ProductRepository productRepository;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Long> prefixIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Long>> trigramIndex = new ConcurrentHashMap<>();
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Product> products = productRepository.findAll();
+        products.forEach(this::index);
+        log.info("🔎 Index de recherche produits construit: {} produits", products.size());
+    }
+
+    /**
+     * Ajoute ou remplace un produit (un renommage retire les anciennes clés).
+     */
+    public synchronized void index(Product product) {
+        Entry previous = entries.get(product.getId());
+        Entry entry = new Entry(copyOf(product), normalize(product.getName()));
+        entries.put(product.getId(), entry);
+        if (previous != null && !previous.normalizedName().equals(entry.normalizedName())) {
+            unindexTerms(product.getId(), previous.normalizedName());
+        }
+        indexTerms(product.getId(), entry.normalizedName());
+    }
+
+    public synchronized void remove(Long productId) {
+        Entry previous = entries.remove(productId);
+        if (previous != null) {
+            unindexTerms(productId, previous.normalizedName());
+        }
+    }
+
+    /**
+     * @param query    texte recherché (vide = tous les produits, filtrés par prix)
+     * @param minPrice prix minimum inclus (null = pas de borne)
+     * @param maxPrice prix maximum inclus (null = pas de borne)
+     */
+    public ProductSearchPage search(String query, Double minPrice, Double maxPrice, int page, int size) {
+        String normalized = normalize(query);
+        List<Match> matches = new ArrayList<>();
+        for (Long id : candidates(normalized)) {
+            Entry entry = entries.get(id);
+            if (entry == null || !inRange(entry.product().getPrice(), minPrice, maxPrice)) {
+                continue;
+            }
+            int rank = rank(entry.normalizedName(), normalized);
+            if (rank >= 0) {
+                matches.add(new Match(entry, rank));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::rank)
+                .thenComparing(match -> match.entry().normalizedName())
+                .thenComparing(match -> match.entry().product().getId()));
+
+        // En long : page * size déborde d'un int pour une page très grande
+        int from = (int) Math.min((long) Math.max(page, 0) * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        List<Product> items = new ArrayList<>(to - from);
+        for (Match match : matches.subList(from, to)) {
+            items.add(match.entry().product());
+        }
+        return new ProductSearchPage(items, matches.size(), page, size);
+    }
+
+    private Set<Long> candidates(String query) {
+        if (query.isEmpty()) {
+            return entries.keySet();
+        }
+        Set<Long> candidates = new HashSet<>();
+        // Mots qui commencent par la recherche (plage de la skip list, sans parcours complet)
+        // Recherche faite uniquement de séparateurs ("-", "&"...) : pas de préfixe
+        String firstWord = firstWord(query);
+        if (!firstWord.isEmpty()) {
+            NavigableMap<String, Long> range = prefixIndex.subMap(firstWord, true, firstWord + Character.MAX_VALUE, true);
+            candidates.addAll(range.values());
+        }
+        // Fragment au milieu d'un mot : intersection des listes de trigrammes, la plus courte d'abord
+        if (query.length() >= GRAM) {
+            List<Set<Long>> postings = new ArrayList<>();
+            for (String gram : trigrams(query)) {
+                Set<Long> posting = trigramIndex.get(gram);
+                if (posting == null) {
+                    return candidates;
+                }
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            for (Long id : postings.get(0)) {
+                if (postings.stream().allMatch(posting -> posting.contains(id))) {
+                    candidates.add(id);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // 0 = le nom commence par la recherche, 1 = un mot commence par la recherche, 2 = fragment, -1 = absent
+    private static int rank(String name, String query) {
+        if (query.isEmpty() || name.startsWith(query)) {
+            return 0;
+        }
+        int position = name.indexOf(query);
+        if (position < 0) {
+            return -1;
+        }
+        return Character.isLetterOrDigit(name.charAt(position - 1)) ? 2 : 1;
+    }
+
+    private void indexTerms(Long id, String name) {
+        for (String word : words(name)) {
+            prefixIndex.put(word + KEY_SEPARATOR + id, id);
+        }
+        for (String gram : trigrams(name)) {
+            trigramIndex.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void unindexTerms(Long id, String name) {
+        for (String word : words(name)) {
+            prefixIndex.remove(word + KEY_SEPARATOR + id);
+        }
+        for (String gram : trigrams(name)) {
+            Set<Long> posting = trigramIndex.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    trigramIndex.remove(gram, posting);
+                }
+            }
+        }
+    }
+
+    private static String firstWord(String query) {
+        for (String word : WORD_SEPARATORS.split(query)) {
+            if (!word.isEmpty()) {
+                return word;
+            }
+        }
+        return "";
+    }
+
+    private static Set<String> words(String name) {
+        Set<String> words = new HashSet<>();
+        for (String word : WORD_SEPARATORS.split(name)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static boolean inRange(double price, Double min, Double max) {
+        return (min == null || price >= min) && (max == null || price <= max);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase();
+    }
+
+    // Copie détachée : les résultats ne sont jamais des entités gérées par JPA
+    private static Product copyOf(Product product) {
+        return Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .quantity(product.getQuantity())
+                .build();
+    }
+
+    private record Entry(Product product, String normalizedName) {
+    }
+
+    private record Match(Entry entry, int rank) {
+    }
+}
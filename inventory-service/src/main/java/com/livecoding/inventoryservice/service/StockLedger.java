@@ -0,0 +1,411 @@
+package com.livecoding.inventoryservice.service;
+
+import com.livecoding.inventoryservice.dto.StockLine;
+import com.livecoding.inventoryservice.dto.StockReservation;
+import com.livecoding.inventoryservice.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ========================================
+ * RÉSERVATION DE STOCK SANS VERROU (reserve / commit / release)
+ * ========================================
+ *
+ * Le stock disponible de chaque produit est un compteur en mémoire décrémenté par compare-and-set :
+ * des milliers de commandes simultanées sur le même produit ne se sérialisent ni sur un verrou
+ * ni sur la ligne SQL, et le compteur ne passe jamais sous zéro (pas de survente).
+ *
+ * - reserve : toutes les lignes ou aucune (les lignes déjà prises sont rendues en cas d'échec).
+ *   L'id peut être choisi par l'appelant : il peut alors annuler une réservation dont il n'a jamais
+ *   reçu la réponse (délai dépassé). Rejouer le même id ne réserve pas deux fois, et un id déjà
+ *   annulé ou confirmé n'est plus réservable (annulation arrivée avant la réservation)
+ * - commit : la vente est définitive, le décrément part dans le prochain flush. Idempotent (rejeu
+ *   du relay outbox de billing-service) ; une réservation expirée ou perdue est appliquée quand
+ *   même à partir des lignes transmises, la facture existant déjà
+ * - release / expiration (inventory.stock.reservation-ttl) : le stock redevient disponible
+ * - Flush groupé (inventory.stock.flush-interval-ms) : un "quantity = quantity - delta" par produit
+ *   modifié, dans une seule transaction, au lieu d'un UPDATE par commande
+ *
+ * Le compteur en mémoire fait foi : une seule instance d'inventory-service doit gérer le stock
+ * (replicas 1, vérifié par StockOwnership ; les autres instances répondent 503).
+ * Une modification de quantité via l'API (réassort) resynchronise le compteur après son commit
+ * (ProductEntityListener), à partir de la quantité relue en base.
+ *
+ * Métriques : inventory.stock.reservations{result=reserved|rejected|committed|committed-late|released|expired}
+ */
+@Service
+@Slf4j
+public class StockLedger {
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reservationTtl;
+    private final Duration committedRetention;
+
+    private final Map<Long, Stock> stocks = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    // Réservations confirmées (id -> date) : un commit rejoué ne décrémente pas deux fois
+    private final Map<String, Long> committedIds = new ConcurrentHashMap<>();
+    // Réservations annulées (id -> date) : une réservation arrivée après son annulation est refusée
+    private final Map<String, Long> releasedIds = new ConcurrentHashMap<>();
+    // Flush et resync exclusifs : un resync ne voit jamais un décrément écrit mais encore "flushing"
+    private final Object flushLock = new Object();
+
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Counter committed;
+    private final Counter committedLate;
+    private final Counter released;
+    private final Counter expired;
+
+    public StockLedger(
+            ProductRepository productRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${inventory.stock.reservation-ttl:2m}") Duration reservationTtl,
+            @Value("${inventory.stock.committed-retention:1h}") Duration committedRetention
+    ) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.reservationTtl = reservationTtl;
+        this.committedRetention = committedRetention;
+        this.reserved = counter(meterRegistry, "reserved");
+        this.rejected = counter(meterRegistry, "rejected");
+        this.committed = counter(meterRegistry, "committed");
+        this.committedLate = counter(meterRegistry, "committed-late");
+        this.released = counter(meterRegistry, "released");
+        this.expired = counter(meterRegistry, "expired");
+    }
+
+    /**
+     * Réserve toutes les lignes, ou aucune.
+     *
+     * @throws InsufficientStockException si un produit est inconnu ou n'a plus assez de stock
+     */
+    public StockReservation reserve(List<StockLine> lines) {
+        return reserve(null, lines);
+    }
+
+    /**
+     * Réserve toutes les lignes, ou aucune, sous l'id choisi par l'appelant (généré si null).
+     *
+     * @throws InsufficientStockException si un produit est inconnu ou n'a plus assez de stock
+     * @throws IllegalArgumentException   si l'id a déjà été annulé ou confirmé
+     */
+    public StockReservation reserve(String reservationId, List<StockLine> lines) {
+        if (reservationId != null) {
+            Reservation existing = reservations.get(reservationId);
+            if (existing != null) {
+                // Rejeu (retry de l'appelant) : la réservation déjà faite est renvoyée
+                return new StockReservation(reservationId, existing.expiresAt());
+            }
+            if (releasedIds.containsKey(reservationId) || committedIds.containsKey(reservationId)) {
+                throw new IllegalArgumentException("Reservation " + reservationId + " already released or committed");
+            }
+        }
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (StockLine line : lines) {
+            if (line.getProductId() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid stock line: " + line.getProductId() + " x " + line.getQuantity());
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+
+        Map<Stock, Integer> taken = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Stock stock = stock(entry.getKey());
+            if (stock == null || !stock.tryReserve(entry.getValue())) {
+                taken.forEach(Stock::release);
+                rejected.increment();
+                throw new InsufficientStockException(entry.getKey(), entry.getValue());
+            }
+            taken.put(stock, entry.getValue());
+        }
+
+        String id = reservationId != null ? reservationId : UUID.randomUUID().toString();
+        Reservation reservation = new Reservation(taken, System.currentTimeMillis() + reservationTtl.toMillis());
+        Reservation concurrent = reservations.putIfAbsent(id, reservation);
+        if (concurrent != null) {
+            taken.forEach(Stock::release);
+            return new StockReservation(id, concurrent.expiresAt());
+        }
+        // Annulation reçue pendant la réservation : release() a marqué l'id avant de chercher la réservation
+        if (releasedIds.containsKey(id) && reservations.remove(id, reservation)) {
+            taken.forEach(Stock::release);
+            throw new IllegalArgumentException("Reservation " + id + " released while it was being made");
+        }
+        reserved.increment();
+        return new StockReservation(id, reservation.expiresAt());
+    }
+
+    /**
+     * @return false si la réservation est inconnue (annulée ou expirée)
+     */
+    public boolean commit(String reservationId) {
+        return commit(reservationId, List.of());
+    }
+
+    /**
+     * Confirme la réservation. Un rejeu d'une réservation déjà confirmée ne change rien.
+     *
+     * @param lines lignes de la réservation : si elle a expiré entre-temps (ou si inventory-service a
+     *              redémarré), la vente est appliquée sans contrôle du disponible, elle a déjà eu lieu
+     * @return false si la réservation est inconnue et qu'aucune ligne n'est fournie
+     */
+    public boolean commit(String reservationId, List<StockLine> lines) {
+        // Réclamé avant tout : deux commits concurrents du même id ne s'appliquent qu'une fois
+        if (committedIds.putIfAbsent(reservationId, System.currentTimeMillis()) != null) {
+            return true;
+        }
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation != null) {
+            reservation.quantities().forEach(Stock::commit);
+            committed.increment();
+            return true;
+        }
+        if (lines == null || lines.isEmpty()) {
+            committedIds.remove(reservationId);
+            return false;
+        }
+        for (StockLine line : lines) {
+            Stock stock = line.getProductId() == null ? null : stock(line.getProductId());
+            if (stock != null && line.getQuantity() > 0) {
+                stock.forceCommit(line.getQuantity());
+            }
+        }
+        committedLate.increment();
+        log.warn("⚠️ Réservation {} expirée ou inconnue : vente appliquée depuis ses {} lignes", reservationId, lines.size());
+        return true;
+    }
+
+    /**
+     * L'id est marqué annulé même s'il est inconnu : la réservation correspondante, si elle arrive
+     * plus tard, est refusée.
+     *
+     * @return false si la réservation est inconnue (déjà confirmée, annulée, expirée ou pas encore reçue)
+     */
+    public boolean release(String reservationId) {
+        releasedIds.put(reservationId, System.currentTimeMillis());
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.quantities().forEach(Stock::release);
+        released.increment();
+        return true;
+    }
+
+    /**
+     * Stock disponible à la vente (hors réservations en cours), -1 si le produit est inconnu.
+     */
+    public int available(Long productId) {
+        Stock stock = stock(productId);
+        return stock == null ? -1 : Math.max(0, stock.available());
+    }
+
+    /**
+     * Nouvelle quantité enregistrée hors ledger (création, réassort), appelé après le commit : le
+     * disponible est recalculé depuis la quantité relue en base, en retirant les réservations en cours
+     * et les ventes pas encore flushées. La quantité de l'entité n'est pas utilisée : elle peut être
+     * antérieure à un flush commité entre-temps.
+     */
+    public void resync(Long productId) {
+        synchronized (flushLock) {
+            Optional<Integer> persisted = productRepository.findQuantityById(productId);
+            if (persisted.isEmpty()) {
+                stocks.remove(productId);
+                return;
+            }
+            stocks.computeIfAbsent(productId, id -> new Stock(0)).resync(persisted.get());
+        }
+    }
+
+    public void remove(Long productId) {
+        stocks.remove(productId);
+    }
+
+    /**
+     * Les réservations jamais confirmées (billing-service arrêté, requête abandonnée) rendent leur stock.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock.expiry-check-interval-ms:5000}")
+    public void expireReservations() {
+        long now = System.currentTimeMillis();
+        reservations.forEach((reservationId, reservation) -> {
+            if (reservation.expiresAt() < now && reservations.remove(reservationId, reservation)) {
+                reservation.quantities().forEach(Stock::release);
+                expired.increment();
+            }
+        });
+        long forgetBefore = now - committedRetention.toMillis();
+        committedIds.values().removeIf(committedAt -> committedAt < forgetBefore);
+        releasedIds.values().removeIf(releasedAt -> releasedAt < forgetBefore);
+    }
+
+    /**
+     * Écrit en base les ventes confirmées depuis le dernier flush, une requête par produit modifié.
+     * En cas d'échec, les décréments sont conservés pour le flush suivant.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock.flush-interval-ms:200}")
+    public void flush() {
+        synchronized (flushLock) {
+            doFlush();
+        }
+    }
+
+    private void doFlush() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        Map<Stock, Integer> flushing = new HashMap<>();
+        stocks.forEach((productId, stock) -> {
+            int delta = stock.takeUnflushed();
+            if (delta > 0) {
+                deltas.put(productId, delta);
+                flushing.put(stock, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    deltas.forEach(productRepository::decrementQuantity));
+            flushing.forEach(Stock::flushed);
+        } catch (RuntimeException e) {
+            log.warn("❌ Flush du stock impossible ({} produits), nouvel essai au prochain flush: {}",
+                    deltas.size(), e.getMessage());
+            flushing.forEach(Stock::flushFailed);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private Stock stock(Long productId) {
+        Stock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        // Produit pas encore vu depuis le démarrage : chargé une fois depuis la base
+        return productRepository.findById(productId)
+                .map(product -> stocks.computeIfAbsent(productId, id -> new Stock(product.getQuantity())))
+                .orElse(null);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.stock.reservations")
+                .description("Réservations de stock par résultat")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compteurs d'un produit, dans un seul état immuable remplacé par compare-and-set : un resync
+     * (réassort) ou un flush ne peut jamais s'intercaler au milieu d'une réservation et surestimer
+     * le disponible.
+     */
+    private static final class Stock {
+
+        private final AtomicReference<State> state;
+
+        private Stock(int available) {
+            this.state = new AtomicReference<>(new State(available, 0, 0, 0));
+        }
+
+        int available() {
+            return state.get().available();
+        }
+
+        boolean tryReserve(int quantity) {
+            while (true) {
+                State current = state.get();
+                if (current.available() < quantity) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(current.available() - quantity,
+                        current.reserved() + quantity, current.unflushed(), current.flushing()))) {
+                    return true;
+                }
+            }
+        }
+
+        void commit(Integer quantity) {
+            state.updateAndGet(s -> new State(s.available(), s.reserved() - quantity,
+                    s.unflushed() + quantity, s.flushing()));
+        }
+
+        /**
+         * Vente d'une réservation expirée : le disponible peut passer sous zéro (déjà revendu),
+         * aucune nouvelle réservation n'est alors acceptée avant un réassort.
+         */
+        void forceCommit(int quantity) {
+            state.updateAndGet(s -> new State(s.available() - quantity, s.reserved(),
+                    s.unflushed() + quantity, s.flushing()));
+        }
+
+        void release(Integer quantity) {
+            state.updateAndGet(s -> new State(s.available() + quantity, s.reserved() - quantity,
+                    s.unflushed(), s.flushing()));
+        }
+
+        /**
+         * Ventes confirmées à écrire en base : elles passent de "unflushed" à "flushing"
+         * jusqu'à la fin de la transaction du flush.
+         */
+        int takeUnflushed() {
+            State previous = state.getAndUpdate(s -> s.unflushed() == 0 ? s
+                    : new State(s.available(), s.reserved(), 0, s.flushing() + s.unflushed()));
+            return previous.unflushed();
+        }
+
+        void flushed(int delta) {
+            state.updateAndGet(s -> new State(s.available(), s.reserved(), s.unflushed(), s.flushing() - delta));
+        }
+
+        void flushFailed(int delta) {
+            state.updateAndGet(s -> new State(s.available(), s.reserved(), s.unflushed() + delta, s.flushing() - delta));
+        }
+
+        /**
+         * Quantité en base après un réassort, lue sous le verrou du flush (flushing vaut alors 0) :
+         * seules les réservations en cours et les ventes pas encore flushées sont retirées.
+         */
+        void resync(int persistedQuantity) {
+            state.updateAndGet(s -> new State(
+                    Math.max(0, persistedQuantity - s.reserved() - s.unflushed() - s.flushing()),
+                    s.reserved(), s.unflushed(), s.flushing()));
+        }
+    }
+
+    private record State(int available, int reserved, int unflushed, int flushing) {
+    }
+
+    private record Reservation(Map<Stock, Integer> quantities, long expiresAt) {
+    }
+
+    /**
+     * Stock insuffisant (ou produit inconnu) pour une ligne de la réservation.
+     */
+    public static class InsufficientStockException extends RuntimeException {
+        public InsufficientStockException(Long productId, int quantity) {
+            super("Insufficient stock for product " + productId + " (requested " + quantity + ")");
+        }
+    }
+}
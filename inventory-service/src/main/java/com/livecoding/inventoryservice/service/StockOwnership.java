@@ -0,0 +1,97 @@
+package com.livecoding.inventoryservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * ========================================
+ * UNE SEULE INSTANCE PROPRIÉTAIRE DU STOCK
+ * ========================================
+ *
+ * Les réservations et le compteur de StockLedger vivent en mémoire (et chaque instance a sa propre
+ * base H2) : deux répliques d'inventory-service vendraient chacune le même stock. Le déploiement
+ * n'en prévoit qu'une (k8s : replicas 1 + strategy Recreate) ; cette classe le vérifie dans Eureka.
+ *
+ * - Propriétaire = plus petit instanceId enregistré (une seule instance répond, même pendant la
+ *   fenêtre où une ancienne instance n'a pas encore été retirée d'Eureka)
+ * - Les autres instances répondent 503 aux appels de stock : billing-service échoue la commande ou,
+ *   pour un commit, le relay outbox réessaie jusqu'à tomber sur la bonne instance
+ * - Aucune instance visible dans Eureka (démarrage, Eureka absent) : l'instance reste propriétaire
+ *
+ * Métrique : inventory.stock.replicas (instances enregistrées, 1 attendu)
+ */
+@Component
+@Slf4j
+public class StockOwnership {
+
+    private final DiscoveryClient discoveryClient;
+    private final ObjectProvider<Registration> registration;
+    private final String serviceId;
+
+    private volatile boolean owner = true;
+    private volatile int replicas = 1;
+
+    public StockOwnership(
+            DiscoveryClient discoveryClient,
+            ObjectProvider<Registration> registration,
+            MeterRegistry meterRegistry,
+            @Value("${spring.application.name}") String serviceId
+    ) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        this.serviceId = serviceId;
+        Gauge.builder("inventory.stock.replicas", this, ownership -> ownership.replicas)
+                .description("Instances d'inventory-service enregistrées dans Eureka (1 attendu)")
+                .register(meterRegistry);
+    }
+
+    public boolean isOwner() {
+        return owner;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${inventory.stock.ownership-check-interval-ms:30000}")
+    public void check() {
+        Registration self = registration.getIfAvailable();
+        if (self == null) {
+            return;
+        }
+        List<ServiceInstance> instances;
+        try {
+            instances = discoveryClient.getInstances(serviceId);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Liste des instances {} indisponible, propriété du stock inchangée: {}",
+                    serviceId, e.getMessage());
+            return;
+        }
+
+        String selfId = self.getInstanceId();
+        boolean smallest = instances.stream()
+                .map(ServiceInstance::getInstanceId)
+                .filter(id -> id != null && !id.equals(selfId))
+                .allMatch(id -> id.compareTo(selfId) > 0);
+        replicas = Math.max(1, instances.size());
+
+        if (replicas > 1) {
+            log.error("❌ {} instances de {} enregistrées : le stock ne doit être géré que par une seule. "
+                            + "Instance {} {}", replicas, serviceId, selfId,
+                    smallest ? "propriétaire du stock" : "en lecture seule (503 sur les appels de stock)");
+        }
+        if (owner != smallest) {
+            log.info("📦 Instance {} : propriété du stock {}", selfId, smallest ? "acquise" : "perdue");
+        }
+        owner = smallest;
+    }
+}
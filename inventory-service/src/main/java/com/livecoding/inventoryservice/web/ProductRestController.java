@@ -1,19 +1,39 @@
 package com.livecoding.inventoryservice.web;
 
+import com.livecoding.inventoryservice.dto.ProductSearchPage;
+import com.livecoding.inventoryservice.dto.StockLine;
+import com.livecoding.inventoryservice.dto.StockReservation;
 import com.livecoding.inventoryservice.entities.Product;
 import com.livecoding.inventoryservice.repository.ProductRepository;
+import com.livecoding.inventoryservice.service.ProductSearchIndex;
+import com.livecoding.inventoryservice.service.StockLedger;
+import com.livecoding.inventoryservice.service.StockOwnership;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductRestController {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockOwnership stockOwnership;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
     @GetMapping
     public List<Product> getAllProducts() {
         return productRepository.findAll();
@@ -23,4 +43,75 @@ public class ProductRestController {
     public Product getProductById(@PathVariable Long id) {
         return productRepository.findById(id).orElse(null);
     }
+
+    // Lookup groupé: un seul aller-retour (et une seule requête SQL) pour N produits
+    @GetMapping("/bulk")
+    public List<Product> getProductsByIds(@RequestParam Set<Long> ids) {
+        return productRepository.findAllById(ids);
+    }
+
+    /**
+     * Recherche typeahead (index en mémoire, voir ProductSearchIndex) :
+     * GET /api/products/search?q=cha&minPrice=10&maxPrice=100&page=0&size=20
+     */
+    @GetMapping("/search")
+    public ProductSearchPage searchProducts(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return productSearchIndex.search(q, minPrice, maxPrice,
+                Math.max(page, 0), Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE)));
+    }
+
+    // ========================================
+    // STOCK : reserve -> commit (vente) ou release (annulation)
+    // 503 sur une instance qui n'est pas propriétaire du stock (voir StockOwnership)
+    // ========================================
+
+    /**
+     * 201 + id de réservation, 409 si un produit n'a pas assez de stock (rien n'est réservé).
+     * reservationId (optionnel) : id choisi par l'appelant, rejouable ; 400 s'il a déjà été annulé.
+     */
+    @PostMapping("/stock/reservations")
+    public ResponseEntity<StockReservation> reserveStock(@RequestParam(required = false) String reservationId,
+                                                         @RequestBody List<StockLine> lines) {
+        if (!stockOwnership.isOwner()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(stockLedger.reserve(reservationId, lines));
+        } catch (StockLedger.InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Idempotent. Les lignes (optionnelles) permettent d'appliquer la vente même si la réservation
+     * a expiré entre-temps ; sans elles, 404 pour une réservation inconnue.
+     */
+    @PostMapping("/stock/reservations/{reservationId}/commit")
+    public ResponseEntity<Void> commitReservation(@PathVariable String reservationId,
+                                                  @RequestBody(required = false) List<StockLine> lines) {
+        if (!stockOwnership.isOwner()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return stockLedger.commit(reservationId, lines)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/stock/reservations/{reservationId}")
+    public ResponseEntity<Void> releaseReservation(@PathVariable String reservationId) {
+        if (!stockOwnership.isOwner()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return stockLedger.release(reservationId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
 }
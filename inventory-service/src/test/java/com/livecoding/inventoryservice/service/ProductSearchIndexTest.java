@@ -0,0 +1,97 @@
+package com.livecoding.inventoryservice.service;
+
+import com.livecoding.inventoryservice.dto.ProductSearchPage;
+import com.livecoding.inventoryservice.entities.Product;
+import com.livecoding.inventoryservice.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(mock(ProductRepository.class));
+        index.index(product(1L, "Chaise de bureau", 120));
+        index.index(product(2L, "Chargeur USB-C", 25));
+        index.index(product(3L, "Table haute", 300));
+        index.index(product(4L, "Fauteuil échancré", 450));
+    }
+
+    @Test
+    void prefixMatchesRankNameStartBeforeWordStartBeforeFragment() {
+        index.index(product(5L, "Grande chaise", 80));
+        index.index(product(6L, "Transat", 60));
+
+        assertEquals(List.of(1L, 5L), ids(index.search("chai", null, null, 0, 10)));
+        assertEquals(List.of(6L), ids(index.search("ansa", null, null, 0, 10)));
+    }
+
+    @Test
+    void fragmentInsideAWordUsesTrigrams() {
+        assertEquals(List.of(2L), ids(index.search("geur", null, null, 0, 10)));
+        assertEquals(List.of(), ids(index.search("xyz", null, null, 0, 10)));
+    }
+
+    @Test
+    void queryIgnoresCaseAndAccents() {
+        assertEquals(List.of(4L), ids(index.search("ECHAN", null, null, 0, 10)));
+    }
+
+    @Test
+    void priceRangeAndPagination() {
+        ProductSearchPage cheap = index.search("", null, 150.0, 0, 1);
+        assertEquals(2, cheap.getTotal());
+        assertEquals(List.of(1L), ids(cheap));
+        assertEquals(List.of(2L), ids(index.search("", null, 150.0, 1, 1)));
+        assertEquals(List.of(3L, 4L), ids(index.search("", 200.0, 500.0, 0, 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void renameAndRemoveUpdateTheIndex() {
+        index.index(product(3L, "Bureau debout", 300));
+        assertTrue(ids(index.search("table", null, null, 0, 10)).isEmpty());
+        assertEquals(List.of(3L, 1L), ids(index.search("bureau", null, null, 0, 10)));
+
+        index.remove(3L);
+        assertEquals(List.of(1L), ids(index.search("bureau", null, null, 0, 10)));
+    }
+
+    @Test
+    void queryMadeOfSeparatorsOnlyReturnsNoMatchInsteadOfFailing() {
+        for (String query : List.of("-", "&", "?", " - ", "€", "---")) {
+            assertEquals(List.of(), ids(index.search(query, null, null, 0, 10)), query);
+        }
+        // Séparateur en tête : le premier vrai mot sert de préfixe
+        assertEquals(List.of(1L), ids(index.search("-chaise", null, null, 0, 10)));
+    }
+
+    @Test
+    void hugePageDoesNotOverflow() {
+        ProductSearchPage page = index.search("", null, null, Integer.MAX_VALUE, 100);
+
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(4, page.getTotal());
+    }
+
+    @Test
+    void nonLatinNamesAreSplitIntoSearchableWords() {
+        index.index(product(7L, "Стул офисный", 90));
+
+        assertEquals(List.of(7L), ids(index.search("офис", null, null, 0, 10)));
+    }
+
+    private static List<Long> ids(ProductSearchPage page) {
+        return page.getItems().stream().map(Product::getId).toList();
+    }
+
+    private static Product product(Long id, String name, double price) {
+        return Product.builder().id(id).name(name).price(price).quantity(10).build();
+    }
+}
@@ -0,0 +1,340 @@
+package com.livecoding.inventoryservice.service;
+
+import com.livecoding.inventoryservice.dto.StockLine;
+import com.livecoding.inventoryservice.dto.StockReservation;
+import com.livecoding.inventoryservice.entities.Product;
+import com.livecoding.inventoryservice.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StockLedgerTest {
+
+    private static final long HOT = 1L;
+    private static final long COLD = 2L;
+
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+    private StockLedger stockLedger;
+    // Décréments reçus par la base via le flush
+    private final Map<Long, AtomicInteger> persistedDeltas = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findById(HOT)).thenReturn(Optional.of(product(HOT, 1_000)));
+        when(productRepository.findById(COLD)).thenReturn(Optional.of(product(COLD, 5)));
+        when(productRepository.decrementQuantity(anyLong(), anyInt())).thenAnswer(invocation -> {
+            persistedDeltas.computeIfAbsent(invocation.getArgument(0), id -> new AtomicInteger())
+                    .addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        stockLedger = new StockLedger(productRepository, transactionTemplate, new SimpleMeterRegistry(), Duration.ofMinutes(2), Duration.ofHours(1));
+    }
+
+    @Test
+    void concurrentOrdersOnHotProduct_neverOversell() throws Exception {
+        int threads = 32;
+        int ordersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    int quantity = 1 + random.nextInt(3);
+                    StockReservation reservation;
+                    try {
+                        reservation = stockLedger.reserve(List.of(new StockLine(HOT, quantity)));
+                    } catch (StockLedger.InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                        continue;
+                    }
+                    // Un quart des commandes est abandonné : le stock doit revenir
+                    if (random.nextInt(4) == 0) {
+                        assertTrue(stockLedger.release(reservation.getReservationId()));
+                    } else {
+                        assertTrue(stockLedger.commit(reservation.getReservationId()));
+                        sold.addAndGet(quantity);
+                    }
+                    if (i % 50 == 0) {
+                        stockLedger.flush();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        stockLedger.flush();
+
+        // 16 000 commandes pour 1 000 unités : le stock est épuisé, jamais dépassé
+        assertTrue(rejected.get() > 0);
+        assertTrue(sold.get() <= 1_000, "oversold: " + sold.get());
+        assertEquals(1_000, sold.get() + stockLedger.available(HOT));
+        assertEquals(sold.get(), persistedDeltas.get(HOT).get());
+    }
+
+    @Test
+    void reservationIsAllOrNothing() {
+        assertThrows(StockLedger.InsufficientStockException.class,
+                () -> stockLedger.reserve(List.of(new StockLine(HOT, 10), new StockLine(COLD, 6))));
+
+        assertEquals(1_000, stockLedger.available(HOT));
+        assertEquals(5, stockLedger.available(COLD));
+    }
+
+    @Test
+    void unknownProductIsRejected() {
+        assertThrows(StockLedger.InsufficientStockException.class,
+                () -> stockLedger.reserve(List.of(new StockLine(99L, 1))));
+    }
+
+    @Test
+    void expiredReservationsReturnTheirStock() {
+        StockLedger shortLived = new StockLedger(productRepository, mock(TransactionTemplate.class),
+                new SimpleMeterRegistry(), Duration.ofMillis(-1), Duration.ofHours(1));
+        StockReservation reservation = shortLived.reserve(List.of(new StockLine(COLD, 5)));
+        assertEquals(0, shortLived.available(COLD));
+
+        shortLived.expireReservations();
+
+        assertEquals(5, shortLived.available(COLD));
+        assertFalse(shortLived.commit(reservation.getReservationId()));
+    }
+
+    @Test
+    void restockKeepsPendingReservationsAndUnflushedSales() {
+        StockReservation pending = stockLedger.reserve(List.of(new StockLine(COLD, 2)));
+        stockLedger.commit(stockLedger.reserve(List.of(new StockLine(COLD, 1))).getReservationId());
+
+        // Réassort à 50 : 2 encore réservés, 1 vendu pas encore écrit en base
+        when(productRepository.findQuantityById(COLD)).thenReturn(Optional.of(50));
+        stockLedger.resync(COLD);
+
+        assertEquals(47, stockLedger.available(COLD));
+        assertTrue(stockLedger.release(pending.getReservationId()));
+        assertEquals(49, stockLedger.available(COLD));
+    }
+
+    @Test
+    void concurrentResyncNeverOverstatesAvailableStock() throws Exception {
+        // Ligne SQL du produit : le décrément du flush et l'écriture du réassort se sérialisent dessus
+        AtomicInteger persisted = new AtomicInteger(1_000);
+        Object row = new Object();
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findById(HOT)).thenReturn(Optional.of(product(HOT, 1_000)));
+        when(repository.findQuantityById(HOT)).thenAnswer(invocation -> {
+            synchronized (row) {
+                return Optional.of(persisted.get());
+            }
+        });
+        when(repository.decrementQuantity(anyLong(), anyInt())).thenAnswer(invocation -> {
+            synchronized (row) {
+                persisted.addAndGet(-invocation.<Integer>getArgument(1));
+            }
+            return 1;
+        });
+        TransactionTemplate transactions = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactions).executeWithoutResult(any());
+        StockLedger ledger = new StockLedger(repository, transactions, new SimpleMeterRegistry(), Duration.ofMinutes(2), Duration.ofHours(1));
+        ledger.available(HOT);
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> orders = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            orders.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    int quantity = 1 + random.nextInt(3);
+                    StockReservation reservation;
+                    try {
+                        reservation = ledger.reserve(List.of(new StockLine(HOT, quantity)));
+                    } catch (StockLedger.InsufficientStockException e) {
+                        continue;
+                    }
+                    if (random.nextBoolean()) {
+                        assertTrue(ledger.release(reservation.getReservationId()));
+                    } else {
+                        assertTrue(ledger.commit(reservation.getReservationId()));
+                        sold.addAndGet(quantity);
+                    }
+                }
+                return null;
+            }));
+        }
+        // Réassorts à quantité inchangée (resync) et flushs en continu, en parallèle des commandes
+        Future<?> resyncs = executor.submit(() -> {
+            start.await();
+            while (!done.get()) {
+                ledger.resync(HOT);
+            }
+            return null;
+        });
+        Future<?> flushes = executor.submit(() -> {
+            start.await();
+            while (!done.get()) {
+                ledger.flush();
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> future : orders) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        resyncs.get(5, TimeUnit.SECONDS);
+        flushes.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        ledger.flush();
+
+        assertTrue(sold.get() <= 1_000, "oversold: " + sold.get());
+        assertEquals(1_000 - sold.get(), persisted.get());
+        assertTrue(sold.get() + ledger.available(HOT) <= 1_000, "available overstated: " + ledger.available(HOT));
+        // Au repos, un dernier resync retrouve le compte exact
+        ledger.resync(HOT);
+        assertEquals(1_000, sold.get() + ledger.available(HOT));
+    }
+
+    @Test
+    void priceOnlyUpdateLoadedBeforeAFlushDoesNotBringBackSoldStock() {
+        AtomicInteger persisted = new AtomicInteger(5);
+        when(productRepository.findQuantityById(COLD)).thenAnswer(invocation -> Optional.of(persisted.get()));
+        when(productRepository.decrementQuantity(eq(COLD), anyInt())).thenAnswer(invocation -> {
+            persisted.addAndGet(-invocation.<Integer>getArgument(1));
+            return 1;
+        });
+
+        // PATCH du prix : produit chargé avec quantity=5...
+        Product stale = product(COLD, 5);
+        // ... pendant qu'une vente de 3 est confirmée et flushée
+        stockLedger.commit(stockLedger.reserve(List.of(new StockLine(COLD, 3))).getReservationId());
+        stockLedger.flush();
+        // ... puis le prix est enregistré : resync après le commit (ProductEntityListener)
+        stale.setPrice(2.0);
+        stockLedger.resync(stale.getId());
+
+        assertEquals(2, persisted.get());
+        assertEquals(2, stockLedger.available(COLD));
+        assertThrows(StockLedger.InsufficientStockException.class,
+                () -> stockLedger.reserve(List.of(new StockLine(COLD, 3))));
+    }
+
+    @Test
+    void replayedCommitIsAppliedOnce() {
+        StockReservation reservation = stockLedger.reserve(List.of(new StockLine(COLD, 2)));
+        List<StockLine> lines = List.of(new StockLine(COLD, 2));
+
+        assertTrue(stockLedger.commit(reservation.getReservationId(), lines));
+        assertTrue(stockLedger.commit(reservation.getReservationId(), lines));
+        stockLedger.flush();
+
+        assertEquals(3, stockLedger.available(COLD));
+        assertEquals(2, persistedDeltas.get(COLD).get());
+    }
+
+    @Test
+    void lateCommitOfExpiredReservationStillRecordsTheSale() {
+        StockLedger shortLived = new StockLedger(productRepository, transactionTemplate,
+                new SimpleMeterRegistry(), Duration.ofMillis(-1), Duration.ofHours(1));
+        StockReservation reservation = shortLived.reserve(List.of(new StockLine(COLD, 4)));
+        shortLived.expireReservations();
+        // Stock rendu à l'expiration puis revendu entre-temps
+        shortLived.commit(shortLived.reserve(List.of(new StockLine(COLD, 3))).getReservationId());
+
+        assertTrue(shortLived.commit(reservation.getReservationId(), List.of(new StockLine(COLD, 4))));
+        shortLived.flush();
+
+        // 7 vendus pour 5 en stock : plus rien n'est réservable avant un réassort
+        assertEquals(0, shortLived.available(COLD));
+        assertEquals(7, persistedDeltas.get(COLD).get());
+        assertThrows(StockLedger.InsufficientStockException.class,
+                () -> shortLived.reserve(List.of(new StockLine(COLD, 1))));
+    }
+
+    @Test
+    void replayedClientReservationIdReservesOnce() {
+        StockReservation first = stockLedger.reserve("bill-r-1", List.of(new StockLine(COLD, 2)));
+        StockReservation retry = stockLedger.reserve("bill-r-1", List.of(new StockLine(COLD, 2)));
+
+        assertEquals("bill-r-1", first.getReservationId());
+        assertEquals(first.getExpiresAt(), retry.getExpiresAt());
+        assertEquals(3, stockLedger.available(COLD));
+    }
+
+    @Test
+    void reservationArrivingAfterItsReleaseIsRefused() {
+        // billing-service a abandonné l'appel (délai dépassé) et annulé l'id avant que la réservation n'arrive
+        assertFalse(stockLedger.release("bill-r-2"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> stockLedger.reserve("bill-r-2", List.of(new StockLine(COLD, 2))));
+        assertEquals(5, stockLedger.available(COLD));
+    }
+
+    @Test
+    void releasedClientReservationCannotBeReservedAgain() {
+        stockLedger.reserve("bill-r-3", List.of(new StockLine(COLD, 2)));
+        assertTrue(stockLedger.release("bill-r-3"));
+
+        // Rejeu tardif de la même requête après l'annulation
+        assertThrows(IllegalArgumentException.class,
+                () -> stockLedger.reserve("bill-r-3", List.of(new StockLine(COLD, 2))));
+        assertEquals(5, stockLedger.available(COLD));
+    }
+
+    private static Product product(long id, int quantity) {
+        return Product.builder().id(id).name("p" + id).price(1.0).quantity(quantity).build();
+    }
+}
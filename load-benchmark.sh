@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+# ========================================
+# DÉBIT ET p99 : threads plateforme vs virtual threads (profil virtual-threads)
+# ========================================
+# Démarre la stack (docker compose) dans chaque mode, puis charge billing-service à concurrence
+# croissante (LoadBenchmark, boucle fermée) sur deux scénarios :
+# - create-bill : POST /bills/customer/{id} (Feign réservation + commit du stock, écriture H2, outbox)
+# - full-bill   : GET /bills/{id}/full (requête de projection H2 + cache catalogue)
+# Le nombre d'épinglages de virtual threads détectés (jvm.threads.virtual.pinned) est affiché à la fin.
+# Profil load-benchmark dans les deux modes : bulkheads et pools de billing-service au-dessus de
+# la concurrence maximale (2048, voir application-load-benchmark.properties), sinon les niveaux
+# élevés ne mesurent que des rejets. Concurrence plafonnée à MAX_CONCURRENCY.
+#
+# Usage : ./load-benchmark.sh [secondes par niveau] [niveaux de concurrence]
+#   ./load-benchmark.sh 20 16,64,256,1024
+# Prérequis : docker compose, curl, Java 17+ (LoadBenchmark est lancé depuis ses sources)
+
+set -euo pipefail
+cd "$(dirname "$0")"
+
+DURATION="${1:-20}"
+LEVELS="${2:-16,64,256,1024}"
+MAX_CONCURRENCY=2048
+SERVICES=(customer-service inventory-service billing-service)
+LOAD="benchmarks/src/main/java/com/livecoding/benchmarks/LoadBenchmark.java"
+
+wait_for() {
+  local url="$1" start
+  start=$(date +%s)
+  until curl -sf -o /dev/null "$url"; do
+    if [ $(( $(date +%s) - start )) -gt 300 ]; then
+      echo "timeout: $url" >&2
+      exit 1
+    fi
+    sleep 2
+  done
+}
+
+# Premier POST qui aboutit (billing doit avoir découvert customer et inventory via Eureka)
+create_bill() {
+  local body="$1" start response
+  start=$(date +%s)
+  until response=$(curl -sf -H 'Content-Type: application/json' -d "$body" \
+      http://localhost:8083/bills/customer/1); do
+    if [ $(( $(date +%s) - start )) -gt 300 ]; then
+      echo "timeout: POST /bills/customer/1" >&2
+      exit 1
+    fi
+    sleep 2
+  done
+  echo "$response" | grep -o '"id":[0-9]*' | head -1 | cut -d: -f2
+}
+
+for level in ${LEVELS//,/ }; do
+  if [ "$level" -gt "$MAX_CONCURRENCY" ]; then
+    echo "concurrence ${level} > ${MAX_CONCURRENCY} : au-delà des bulkheads du profil load-benchmark" >&2
+    exit 1
+  fi
+done
+
+printf "%-28s %11s %10s %9s %9s %9s %8s\n" "MODE/SCENARIO" "CONCURRENCY" "REQ/S" "P50(ms)" "P99(ms)" "MAX(ms)" "ERRORS"
+for mode in platform virtual-threads; do
+  profile=$([ "$mode" = "virtual-threads" ] && echo "virtual-threads,load-benchmark" || echo "load-benchmark")
+  # Bases H2 en mémoire : des conteneurs neufs à chaque mode
+  docker compose rm -sf "${SERVICES[@]}" > /dev/null 2>&1
+  # Images standard : une image Spring AOT refuserait les profils virtual-threads et load-benchmark
+  OPTIMIZE_STARTUP=false SERVICES_PROFILE="$profile" docker compose up -d --build "${SERVICES[@]}" > /dev/null 2>&1
+  for port in 8081 8082 8083; do
+    wait_for "http://localhost:${port}/actuator/health"
+  done
+
+  # Produit au stock quasi illimité : les réservations ne tombent jamais en 409
+  product_id=$(curl -sf -D - -o /dev/null -H 'Content-Type: application/json' \
+      -d '{"name":"load-benchmark","price":10,"quantity":1000000000}' http://localhost:8082/products \
+      | grep -i '^location:' | tr -d '\r' | sed 's#.*/##')
+  selection="[{\"productId\":${product_id},\"quantity\":1}]"
+  bill_id=$(create_bill "$selection")
+
+  java "$LOAD" "${mode}/create-bill" http://localhost:8083/bills/customer/1 "$LEVELS" "$DURATION" "$selection"
+  java "$LOAD" "${mode}/full-bill" "http://localhost:8083/bills/${bill_id}/full" "$LEVELS" "$DURATION"
+
+  for port in 8081 8082 8083; do
+    pinned=$(curl -s "http://localhost:${port}/actuator/prometheus" \
+        | grep '^jvm_threads_virtual_pinned_seconds_count' | awk '{print $2}' || true)
+    echo "  ${mode} :${port} virtual threads épinglés : ${pinned:-0}"
+  done
+done
+docker compose rm -sf "${SERVICES[@]}" > /dev/null 2>&1
@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# ========================================
+# TEMPS JUSQU'À LA PREMIÈRE REQUÊTE : build standard vs OPTIMIZE_STARTUP=true (AOT + AppCDS)
+# ========================================
+# Construit chaque service dans les deux modes, démarre le conteneur seul (sans Kafka ni Eureka)
+# et mesure le délai entre "docker start" et la première réponse HTTP (quel que soit son code).
+#
+# Usage : ./startup-benchmark.sh [runs] [service...]
+#   ./startup-benchmark.sh 3 billing-service gateway
+
+set -euo pipefail
+cd "$(dirname "$0")"
+
+RUNS="${1:-3}"
+shift || true
+SERVICES=("$@")
+if [ ${#SERVICES[@]} -eq 0 ]; then
+  SERVICES=(discovery-service customer-service inventory-service billing-service gateway)
+fi
+
+declare -A PORTS=(
+  [discovery-service]=8761 [customer-service]=8081 [inventory-service]=8082
+  [billing-service]=8083 [gateway]=8888
+)
+# discovery-service et gateway se construisent depuis leur dossier, les autres depuis la racine
+declare -A CONTEXTS=(
+  [discovery-service]=discovery-service [gateway]=.
+  [customer-service]=. [inventory-service]=. [billing-service]=.
+)
+
+now_ms() { date +%s%3N; }
+
+# Démarre l'image et renvoie le délai (ms) avant la première réponse HTTP
+time_to_first_request() {
+  local image="$1" port="$2" name="startup-bench-$$"
+  docker create --name "$name" -p "127.0.0.1:${port}:${port}" "$image" > /dev/null
+  local start
+  start=$(now_ms)
+  docker start "$name" > /dev/null
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://127.0.0.1:${port}/actuator/health" || true)" != "000" ]; do
+    if [ $(( $(now_ms) - start )) -gt 180000 ]; then
+      docker rm -f "$name" > /dev/null
+      echo "timeout"
+      return
+    fi
+    sleep 0.05
+  done
+  echo $(( $(now_ms) - start ))
+  docker rm -f "$name" > /dev/null
+}
+
+printf "%-20s %-10s %s\n" "SERVICE" "MODE" "TIME TO FIRST REQUEST (ms)"
+for service in "${SERVICES[@]}"; do
+  for mode in false true; do
+    image="startup-bench/${service}:optimize-${mode}"
+    docker build -q --build-arg OPTIMIZE_STARTUP="$mode" \
+      -f "${service}/Dockerfile" -t "$image" "${CONTEXTS[$service]}" > /dev/null
+    results=()
+    for _ in $(seq "$RUNS"); do
+      results+=("$(time_to_first_request "$image" "${PORTS[$service]}")")
+    done
+    label=$([ "$mode" = "true" ] && echo "aot+cds" || echo "standard")
+    printf "%-20s %-10s %s\n" "$service" "$label" "${results[*]}"
+  done
+done